@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.tools.DownloadFromUrlInstaller.Installable;
+
+import java.util.concurrent.TimeUnit;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import org.jenkinsci.plugins.ninja.NinjaInstaller.InstallableIndex;
+import org.jenkinsci.plugins.ninja.NinjaInstaller.NinjaVariant;
+import org.jenkinsci.plugins.ninja.NinjaInstaller.OsFamily;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks mapping the downloadable´s JSON data to the installables and
+ * selecting the variant for a node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InstallerBenchmark {
+    private static final String[] OS = { "linux", "mac", "win" };
+
+    /** the number of releases in the downloadable data */
+    @Param({ "10", "300" })
+    int releases;
+
+    JSONObject data;
+    InstallableIndex index;
+    String oldestId;
+    NinjaVariant variant;
+
+    @Setup
+    public void setUp() {
+        final JSONArray list = new JSONArray();
+        for (int i = releases - 1; i >= 0; i--) {
+            final String version = "1." + i / 10 + "." + i % 10;
+            final JSONArray variants = new JSONArray();
+            for (String os : OS) {
+                final JSONObject v = new JSONObject();
+                v.put("url", "https://github.com/ninja-build/ninja/releases/download/v"
+                        + version + "/ninja-" + os + ".zip");
+                v.put("os", os);
+                v.put("arch", "-");
+                variants.add(v);
+            }
+            final JSONObject inst = new JSONObject();
+            inst.put("id", version);
+            inst.put("name", version);
+            inst.put("variants", variants);
+            list.add(inst);
+            oldestId = version;
+        }
+        data = new JSONObject();
+        data.put("list", list);
+        index = InstallableIndex.build(data, 1L);
+        variant = new NinjaVariant();
+        variant.os = "win";
+        variant.arch = "-";
+    }
+
+    /**
+     * What {@code DescriptorImpl.getInstallables()} costs whenever the
+     * downloadable data changed.
+     */
+    @Benchmark
+    public InstallableIndex buildIndex() {
+        return InstallableIndex.build(data, 1L);
+    }
+
+    /**
+     * What {@code NinjaInstaller.getInstallable()} costs per installation.
+     */
+    @Benchmark
+    public Installable lookup() {
+        return index.lookup(oldestId, OsFamily.valueOfOsName("Linux"),
+                "amd64");
+    }
+
+    @Benchmark
+    public OsFamily valueOfOsName() {
+        return OsFamily.valueOfOsName("Windows Server 2012 R2");
+    }
+
+    @Benchmark
+    public boolean appliesTo() {
+        return variant.appliesTo(OsFamily.Windows, "amd64");
+    }
+}
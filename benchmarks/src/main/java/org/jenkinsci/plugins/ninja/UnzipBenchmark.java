@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks unpacking an archive, including setting the execute permission
+ * on each file, which replaced the separate recursive chmod.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UnzipBenchmark {
+
+    /** the number of files in the archive */
+    @Param({ "1", "5000" })
+    int files;
+
+    byte[] archive;
+    File dir;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(42);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ZipOutputStream zip = new ZipOutputStream(bytes);
+        final byte[] content = new byte[4096];
+        for (int i = 0; i < files; i++) {
+            // spread over directories, below a common top-level directory
+            zip.putNextEntry(new ZipEntry("ninja-1.6.0/dir" + i % 50 + "/file"
+                    + i));
+            random.nextBytes(content);
+            zip.write(content, 0, 1 + random.nextInt(content.length));
+            zip.closeEntry();
+        }
+        zip.putNextEntry(new ZipEntry("ninja-1.6.0/ninja"));
+        zip.write(content);
+        zip.closeEntry();
+        zip.close();
+        archive = bytes.toByteArray();
+        dir = File.createTempFile("unzip", ".bench");
+        dir.delete();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Util.deleteRecursive(dir);
+    }
+
+    /**
+     * Unpacks into the same directory each time, so this includes deleting
+     * the previous content.
+     */
+    @Benchmark
+    public long unzip() throws IOException {
+        return StreamingUnzip.unzip(new ByteArrayInputStream(archive), dir);
+    }
+}
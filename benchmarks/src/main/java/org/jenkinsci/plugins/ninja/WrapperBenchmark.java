@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.EnvVars;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolProperty;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the per-build work of the build wrapper: selecting the tool
+ * installation and building its environment variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WrapperBenchmark {
+
+    /** the number of configured tool installations */
+    @Param({ "10", "1000" })
+    int installations;
+
+    NinjaTool[] tools;
+    String lastName;
+    NinjaTool installed;
+
+    @Setup
+    public void setUp() throws IOException {
+        tools = new NinjaTool[installations];
+        for (int i = 0; i < installations; i++) {
+            lastName = "ninja-1." + i;
+            final InstallSourceProperty installer = new InstallSourceProperty(
+                    Collections.<ToolInstaller> singletonList(new NinjaInstaller(
+                            "1." + i)));
+            tools[i] = new NinjaTool(lastName,
+                    "/var/lib/jenkins/tools/ninja/1." + i + "/ninja",
+                    Collections.<ToolProperty<?>> singletonList(installer));
+        }
+        installed = tools[installations - 1];
+    }
+
+    /**
+     * The worst case of {@code NinjaBuildWrapper.getSelectedInstallation()}.
+     */
+    @Benchmark
+    public NinjaTool selectInstallation() {
+        return NinjaBuildWrapper.selectInstallation(tools, lastName);
+    }
+
+    @Benchmark
+    public EnvVars buildEnvVars() {
+        final EnvVars env = new EnvVars();
+        installed.buildEnvVars(env);
+        return env;
+    }
+}
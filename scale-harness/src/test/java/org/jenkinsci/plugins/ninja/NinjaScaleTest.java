@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.DownloadService.Downloadable;
+import hudson.slaves.DumbSlave;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Brings up a fleet of local build nodes at once and lets each run a build
+ * that installs ninja, first on empty nodes, then again with ninja already
+ * installed. Reports the set up latency of the builds, the bytes fetched from
+ * the download site and the CPU time and heap the controller used.
+ *
+ * <p>
+ * Fails if the second round fetches any archive bytes, if the p99 set up
+ * latency of a round exceeds its budget or, with the archives cached on the
+ * controller, if the first round fetches more than one archive per OS.
+ * </p>
+ *
+ * <p>
+ * The fleet is configured by the system properties {@code scale.agents},
+ * {@code scale.latencyMillis}, {@code scale.bandwidthKBps},
+ * {@code scale.archiveKB}, {@code scale.cacheOnController} and
+ * {@code scale.p99BudgetMillis}.
+ * </p>
+ */
+public class NinjaScaleTest {
+    private static final String TOOL_NAME = "ninja-scale";
+    private static final String VERSION = "1.6.0";
+    /** matches the set up time the build wrapper prints */
+    private static final Pattern SET_UP = Pattern
+            .compile("Ninja set up in (\\d+) ms");
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private StandInServer server;
+    /** the paths of the archives on the stand-in server, keyed by OS */
+    private final Map<String, String> archivePaths = new HashMap<String, String>();
+    /** the size of each archive */
+    private int archiveLength;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StandInServer(Long.getLong("scale.latencyMillis", 50),
+                Integer.getInteger("scale.bandwidthKBps", 2048));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void fleetInstallsConcurrently() throws Exception {
+        final int agents = Integer.getInteger("scale.agents", 100);
+        final long p99Budget = Long.getLong("scale.p99BudgetMillis", 30000);
+        final boolean cacheOnController = Boolean.parseBoolean(System
+                .getProperty("scale.cacheOnController", "true"));
+        publishInstallerData(Integer.getInteger("scale.archiveKB", 512));
+        configureTool();
+        NinjaConfiguration.get().setCacheOnController(cacheOnController);
+
+        final List<FreeStyleProject> projects = new ArrayList<FreeStyleProject>();
+        final List<Future<?>> connecting = new ArrayList<Future<?>>();
+        for (int i = 0; i < agents; i++) {
+            final DumbSlave agent = j.createSlave();
+            connecting.add(agent.toComputer().connect(false));
+            final FreeStyleProject project = j.createFreeStyleProject();
+            project.setAssignedNode(agent);
+            project.getBuildWrappersList().add(new NinjaBuildWrapper(TOOL_NAME));
+            projects.add(project);
+        }
+        for (Future<?> f : connecting) {
+            f.get(5, TimeUnit.MINUTES);
+        }
+
+        final Round cold = runAll(projects);
+        report("cold", cold);
+        final Round warm = runAll(projects);
+        report("warm", warm);
+
+        assertEquals("builds that reported their set up time", agents,
+                cold.setUpMillis.size());
+        assertEquals("builds that reported their set up time", agents,
+                warm.setUpMillis.size());
+        if (cacheOnController) {
+            for (Map.Entry<String, Long> e : cold.archiveBytes.entrySet()) {
+                assertTrue("cold round fetched " + e.getValue()
+                        + " bytes of the " + e.getKey() + " archive of "
+                        + archiveLength + " bytes",
+                        e.getValue() <= archiveLength);
+            }
+        }
+        for (Map.Entry<String, Long> e : warm.archiveBytes.entrySet()) {
+            assertEquals("warm round bytes of the " + e.getKey() + " archive",
+                    0L, e.getValue().longValue());
+        }
+        assertTrue("cold round p99 " + cold.percentile(0.99)
+                + " ms exceeds budget of " + p99Budget + " ms",
+                cold.percentile(0.99) <= p99Budget);
+        assertTrue("warm round p99 " + warm.percentile(0.99)
+                + " ms exceeds budget of " + p99Budget + " ms",
+                warm.percentile(0.99) <= p99Budget);
+    }
+
+    /**
+     * Publishes an archive per OS on the stand-in server and the installer
+     * data pointing to them, as the crawler would.
+     */
+    private void publishInstallerData(int archiveKB) throws IOException {
+        final JSONArray variants = new JSONArray();
+        final byte[] archive = createArchive(archiveKB);
+        archiveLength = archive.length;
+        for (String os : new String[] { "linux", "mac", "win" }) {
+            final String path = "/ninja-" + os + ".zip";
+            archivePaths.put(os, path);
+            final JSONObject variant = new JSONObject();
+            variant.put("url", server.publish(path, archive));
+            variant.put("os", os);
+            variant.put("arch", "-");
+            variants.add(variant);
+        }
+        final JSONObject installable = new JSONObject();
+        installable.put("id", VERSION);
+        installable.put("name", VERSION);
+        installable.put("variants", variants);
+        final JSONArray list = new JSONArray();
+        list.add(installable);
+        final JSONObject data = new JSONObject();
+        data.put("list", list);
+
+        // fetch it like the update site would be
+        final String url = server.publish("/updates/"
+                + NinjaInstaller.class.getName() + ".json", data.toString()
+                .getBytes("UTF-8"));
+        final InputStream in = new URL(url).openStream();
+        try {
+            Downloadable.get(NinjaInstaller.class.getName()).getDataFile()
+                    .write(IOUtils.toString(in, "UTF-8"));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] createArchive(int sizeKB) throws IOException {
+        final byte[] exe = new byte[sizeKB * 1024];
+        new Random(42).nextBytes(exe);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ZipOutputStream zip = new ZipOutputStream(bytes);
+        zip.putNextEntry(new ZipEntry("ninja"));
+        zip.write(exe);
+        zip.closeEntry();
+        zip.putNextEntry(new ZipEntry("ninja.exe"));
+        zip.write(exe);
+        zip.closeEntry();
+        zip.close();
+        return bytes.toByteArray();
+    }
+
+    private void configureTool() throws IOException {
+        final InstallSourceProperty installer = new InstallSourceProperty(
+                Collections.<ToolInstaller> singletonList(new NinjaInstaller(
+                        VERSION)));
+        final NinjaTool tool = new NinjaTool(TOOL_NAME, null,
+                Collections.<ToolProperty<?>> singletonList(installer));
+        j.jenkins.getDescriptorByType(NinjaTool.DescriptorImpl.class)
+                .setInstallations(tool);
+    }
+
+    /**
+     * Starts a build of each project at once and waits for all of them.
+     */
+    private Round runAll(List<FreeStyleProject> projects) throws Exception {
+        final OperatingSystemMXBean os = ManagementFactory
+                .getOperatingSystemMXBean();
+        final HeapSampler heap = new HeapSampler();
+        heap.start();
+        final long bytesBefore = server.getBytesServed();
+        final long requestsBefore = server.getRequests();
+        final Map<String, Long> archiveBytesBefore = archiveBytes();
+        final long cpuBefore = processCpuTime(os);
+        final long start = System.currentTimeMillis();
+
+        final List<Future<FreeStyleBuild>> builds = new ArrayList<Future<FreeStyleBuild>>();
+        for (FreeStyleProject project : projects) {
+            builds.add(project.scheduleBuild2(0));
+        }
+        final Round round = new Round();
+        for (Future<FreeStyleBuild> f : builds) {
+            final FreeStyleBuild build = j.assertBuildStatusSuccess(f);
+            for (String line : build.getLog(100)) {
+                final Matcher m = SET_UP.matcher(line);
+                if (m.find()) {
+                    round.setUpMillis.add(Long.parseLong(m.group(1)));
+                }
+            }
+        }
+
+        round.wallMillis = System.currentTimeMillis() - start;
+        round.cpuMillis = (processCpuTime(os) - cpuBefore) / 1000000;
+        round.bytes = server.getBytesServed() - bytesBefore;
+        round.requests = server.getRequests() - requestsBefore;
+        for (Map.Entry<String, Long> e : archiveBytes().entrySet()) {
+            round.archiveBytes.put(e.getKey(), e.getValue()
+                    - archiveBytesBefore.get(e.getKey()));
+        }
+        round.maxHeap = heap.finish();
+        Collections.sort(round.setUpMillis);
+        return round;
+    }
+
+    /**
+     * Gets the bytes served so far of each archive, keyed by OS.
+     */
+    private Map<String, Long> archiveBytes() {
+        final Map<String, Long> bytes = new HashMap<String, Long>();
+        for (Map.Entry<String, String> e : archivePaths.entrySet()) {
+            bytes.put(e.getKey(), server.getBytesServed(e.getValue()));
+        }
+        return bytes;
+    }
+
+    private static long processCpuTime(OperatingSystemMXBean os) {
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os)
+                    .getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static void report(String name, Round round) {
+        System.out.println(String.format("[%s] %d builds in %d ms:"
+                + " set up p50 %d ms, p99 %d ms, max %d ms;"
+                + " %d bytes in %d requests fetched;"
+                + " controller CPU %d ms, max heap %d MiB", name,
+                round.setUpMillis.size(), round.wallMillis,
+                round.percentile(0.5), round.percentile(0.99),
+                round.percentile(1.0), round.bytes, round.requests,
+                round.cpuMillis, round.maxHeap / (1024 * 1024)));
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * The measurements of a round of builds.
+     */
+    private static final class Round {
+        /** the set up times of the builds, sorted */
+        final List<Long> setUpMillis = new ArrayList<Long>();
+        long wallMillis;
+        long cpuMillis;
+        long bytes;
+        long requests;
+        /** the archive bytes fetched, keyed by OS */
+        final Map<String, Long> archiveBytes = new HashMap<String, Long>();
+        long maxHeap;
+
+        long percentile(double p) {
+            if (setUpMillis.isEmpty())
+                return 0;
+            final int i = (int) Math.ceil(p * setUpMillis.size()) - 1;
+            return setUpMillis.get(Math.max(0,
+                    Math.min(i, setUpMillis.size() - 1)));
+        }
+    } // Round
+
+    /**
+     * Samples the used heap of the controller in the background.
+     */
+    private static final class HeapSampler extends Thread {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private volatile boolean done;
+        private long max;
+
+        HeapSampler() {
+            super("heap sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!done) {
+                max = Math.max(max, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Stops sampling.
+         *
+         * @return the maximum used heap in bytes
+         */
+        long finish() throws InterruptedException {
+            done = true;
+            join();
+            return max;
+        }
+    } // HeapSampler
+}
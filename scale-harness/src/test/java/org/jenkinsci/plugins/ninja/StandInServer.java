@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server standing in for the update site and ninja´s download
+ * site. Each response is delayed by a fixed latency and its body is sent at a
+ * limited bandwidth, so that the installer sees realistic transfer times.
+ * Content is served with an entity tag and range requests of the form
+ * {@code bytes=<offset>-} are honored, so interrupted downloads may resume.
+ */
+class StandInServer {
+    /** the number of chunks per second the bandwidth is spread over */
+    private static final int CHUNKS_PER_SECOND = 10;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, byte[]> content = new ConcurrentHashMap<String, byte[]>();
+    /** the body bytes sent, per path */
+    private final Map<String, AtomicLong> pathBytesServed = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final long latencyMillis;
+    private final int bytesPerChunk;
+
+    /**
+     * @param latencyMillis
+     *            the delay before each response
+     * @param bandwidthKBps
+     *            the bandwidth per response in KiB per second
+     */
+    StandInServer(long latencyMillis, int bandwidthKBps) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.bytesPerChunk = Math.max(1, bandwidthKBps * 1024
+                / CHUNKS_PER_SECOND);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Serves the specified content at the specified path.
+     *
+     * @return the URL of the content
+     */
+    String publish(String path, byte[] bytes) {
+        content.put(path, bytes);
+        pathBytesServed.put(path, new AtomicLong());
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Gets the number of body bytes sent so far.
+     */
+    long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    /**
+     * Gets the number of body bytes sent so far for the specified path.
+     */
+    long getBytesServed(String path) {
+        final AtomicLong bytes = pathBytesServed.get(path);
+        return bytes == null ? 0 : bytes.get();
+    }
+
+    /**
+     * Gets the number of requests served so far.
+     */
+    long getRequests() {
+        return requests.get();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(latencyMillis);
+            final byte[] bytes = content.get(exchange.getRequestURI()
+                    .getPath());
+            if (bytes == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            final String etag = etagOf(bytes);
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            final int from = rangeStart(exchange, etag);
+            if (from > 0 && from >= bytes.length) {
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes */" + bytes.length);
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            if (from > 0) {
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + from + "-" + (bytes.length - 1) + "/"
+                                + bytes.length);
+                exchange.sendResponseHeaders(206, bytes.length - from);
+            } else {
+                exchange.sendResponseHeaders(200, bytes.length);
+            }
+            final AtomicLong pathBytes = pathBytesServed.get(exchange
+                    .getRequestURI().getPath());
+            final OutputStream out = exchange.getResponseBody();
+            try {
+                for (int off = from; off < bytes.length; off += bytesPerChunk) {
+                    final int len = Math.min(bytesPerChunk, bytes.length - off);
+                    out.write(bytes, off, len);
+                    bytesServed.addAndGet(len);
+                    pathBytes.addAndGet(len);
+                    if (off + len < bytes.length) {
+                        Thread.sleep(1000 / CHUNKS_PER_SECOND);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Gets the offset of a range request that still matches the content.
+     *
+     * @return the offset or {@code 0} to send the whole content
+     */
+    private static int rangeStart(HttpExchange exchange, String etag) {
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null || !range.startsWith("bytes=")
+                || !range.endsWith("-"))
+            return 0;
+        final String ifRange = exchange.getRequestHeaders()
+                .getFirst("If-Range");
+        if (ifRange != null && !ifRange.equals(etag))
+            return 0; // changed since the partial download
+        try {
+            return Integer.parseInt(range.substring("bytes=".length(),
+                    range.length() - 1));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static String etagOf(byte[] bytes) {
+        return "\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+    }
+}
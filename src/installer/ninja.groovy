@@ -1,52 +1,128 @@
 #!./lib/runner.groovy
 // Generates server-side metadata for ninja auto-installation
-import com.gargoylesoftware.htmlunit.html.*;
+//
+// Reads the releases from the GitHub API. The previous result and the
+// validators of the last response are kept in a state file, so only releases
+// published since the last run are processed, and nothing at all if the API
+// answers 304 Not Modified.
+import java.security.MessageDigest
 import net.sf.json.*
-import com.gargoylesoftware.htmlunit.WebClient
 
-def githubUrl= 'https://github.com';
-def projectRelURL= '/martine/ninja/releases';
+def apiUrl = 'https://api.github.com/repos/ninja-build/ninja/releases'
+def stateFile = new File(System.getenv('NINJA_CRAWLER_STATE') ?: 'target/ninja-crawler-state.json')
+def token = System.getenv('GITHUB_TOKEN')
 
-def wc = new WebClient()
-wc.setJavaScriptEnabled(false);
+// archive suffix -> [os, arch] as understood by NinjaVariant.appliesTo(),
+// which also installs the x86_64 builds on nodes running a 32 bit JVM
+def platforms = [
+  'linux'        : ['linux', 'x86_64'],
+  'linux-aarch64': ['linux', 'aarch64'],
+  'mac'          : ['mac', '-'], // universal binary
+  'win'          : ['win', 'x86_64'],
+  'winarm64'     : ['win', 'aarch64'],
+]
 
-def relArchives = [];
-def releases = [:]
+def state = stateFile.exists() ? JSONObject.fromObject(stateFile.getText('UTF-8')) : new JSONObject()
+def known = state.optJSONArray('list') ?: new JSONArray()
+def knownIds = known.collect { it.id } as Set
 
-// Gather a list of archive files relative to githubUrl
-wc.getPage(githubUrl+ projectRelURL).selectNodes("//a[@href]").each { HtmlAnchor e ->
-  def rel=  e.getHrefAttribute()
-  // We only want release archives; ignore source packages and other
-  def m = (rel =~ /^/ + projectRelURL + /\/download\/v\d+(\.\d+)*\/ninja-(.*).zip$/)
-  if (m) {
-    relArchives << rel;
+def open = { String url, boolean conditional ->
+  def con = new URL(url).openConnection()
+  con.setRequestProperty('Accept', 'application/vnd.github+json')
+  if (token) {
+    con.setRequestProperty('Authorization', "Bearer ${token}")
   }
+  if (conditional) {
+    if (state.optString('etag')) {
+      con.setRequestProperty('If-None-Match', state.getString('etag'))
+    }
+    if (state.optString('lastModified')) {
+      con.setRequestProperty('If-Modified-Since', state.getString('lastModified'))
+    }
+  }
+  return con
+}
+
+def sha256Of = { String url ->
+  def md = MessageDigest.getInstance('SHA-256')
+  new URL(url).withInputStream { is ->
+    byte[] buf = new byte[8192]
+    int n
+    while ((n = is.read(buf)) != -1) {
+      md.update(buf, 0, n)
+    }
+  }
+  return md.digest().encodeHex().toString()
 }
 
-// Build a map of Ninja versions -> platform archives
-relArchives.each { file ->
-  // Extract the version info from archive filename
-  def parts = (file =~ /.+\/download\/v(\d+(\.\d+)*)\/ninja-(.*).zip$/)
-  if (parts) {
-    // Gather the info for this archive
-    def variant = [:]
-    variant.url = githubUrl+ file;
-    variant.os = parts[0][3]
-    variant.arch = "-"; // ninja URLs do not specify an architecture as of Sep 2015
-//    println variant;
-
-    // Add it to the list of variants for this version of ninja
-    def version = parts[0][1]
-    if (!releases[version]) {
-      releases[version] = []
-    }
-    releases[version] << variant
+// Gather the releases published since the last run, newest first
+def added = []
+def url = apiUrl + '?per_page=100'
+def first = true
+while (url) {
+  def con = open(url, first)
+  if (first && con.responseCode == 304) {
+    println 'No new ninja releases'
+    break
+  }
+  if (con.responseCode != 200) {
+    throw new IOException("GitHub API returned ${con.responseCode} for ${url}")
   }
+  if (first) {
+    state.put('etag', con.getHeaderField('ETag') ?: '')
+    state.put('lastModified', con.getHeaderField('Last-Modified') ?: '')
+  }
+  def page = JSONArray.fromObject(con.inputStream.getText('UTF-8'))
+  def done = false
+  for (release in page) {
+    if (release.draft || release.prerelease) {
+      continue
+    }
+    def m = (release.tag_name =~ /^v(\d+(\.\d+)*)$/)
+    if (!m) {
+      continue
+    }
+    def version = m[0][1]
+    if (knownIds.contains(version)) {
+      // everything older was processed by a previous run
+      done = true
+      break
+    }
+    def variants = []
+    for (asset in release.assets) {
+      def a = (asset.name =~ /^ninja-(.*)\.zip$/)
+      if (!a || !platforms[a[0][1]]) {
+        continue
+      }
+      def platform = platforms[a[0][1]]
+      def variant = [:]
+      variant.url = asset.browser_download_url
+      variant.os = platform[0]
+      variant.arch = platform[1]
+      variant.size = asset.size
+      // newer API responses carry the digest, else download once
+      def digest = asset.digest instanceof String ? asset.digest : null
+      variant.sha256 = digest?.startsWith('sha256:') ? digest.substring(7) : sha256Of(variant.url)
+      variants << variant
+    }
+    if (variants) {
+      added << [ 'id': version, 'name': version, 'variants': variants ]
+    }
+  }
+  first = false
+  // follow the pagination
+  def link = done ? null : con.getHeaderField('Link')
+  def next = link ? (link =~ /<([^>]+)>;\s*rel="next"/) : null
+  url = next ? next[0][1] : null
 }
 
-// Build the JSON structure: a list of release objects, each with its platform-specific variants
-def json = [list: releases.collect { key, value ->
-    [ 'id': key, 'name': "${key}".toString(),
-      'variants': value] }]
+// Merge, newest first, and keep the result for the next run
+def list = new JSONArray()
+added.each { list.add(it) }
+known.each { list.add(it) }
+state.put('list', list)
+stateFile.parentFile?.mkdirs()
+stateFile.setText(state.toString(2), 'UTF-8')
+
 // Write the JSON update file
-lib.DataWriter.write('org.jenkinsci.plugins.ninja.NinjaInstaller', JSONObject.fromObject(json));
+lib.DataWriter.write('org.jenkinsci.plugins.ninja.NinjaInstaller', JSONObject.fromObject([list: list]));
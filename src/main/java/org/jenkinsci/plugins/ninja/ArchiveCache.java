@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.ProxyConfiguration;
+import hudson.Util;
+import hudson.model.TaskListener;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+import java.util.zip.ZipInputStream;
+
+import jenkins.model.Jenkins;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A content-addressed cache of ninja archives on the controller. Each archive
+ * is downloaded only once and stored under its SHA-256 digest, a small index
+ * maps the download URL to that digest.
+ * <p>
+ * An interrupted download is kept and resumed by a HTTP range request, but
+ * only from the same URL and only if the server identified the content by an
+ * entity tag or modification time, which is sent as {@code If-Range}. A
+ * download from another mirror starts over. An archive that does not have the
+ * expected digest, or is not a valid zip file if no digest is known, is
+ * discarded and the next mirror is tried.
+ */
+final class ArchiveCache {
+    private static final Logger logger = Logger.getLogger(ArchiveCache.class
+            .getName());
+
+    /** the URL a partial download was started from */
+    private static final String META_SOURCE = "source";
+    /** the entity tag or modification time of a partial download */
+    private static final String META_VALIDATOR = "validator";
+
+    /** one monitor per URL, so that concurrent installs download only once */
+    private static final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+    private ArchiveCache() {
+    }
+
+    /**
+     * Gets the root directory of the cache.
+     */
+    static File getRootDir() {
+        return new File(Jenkins.getInstance().getRootDir(), "caches/ninja");
+    }
+
+    /**
+     * Gets the archive downloadable from the specified URL, downloading it to
+     * the cache if it is not already present.
+     *
+     * @param url
+     *            the URL to download the archive from
+     * @param sha256
+     *            the expected hex encoded SHA-256 digest of the archive or
+     *            {@code null} if unknown
+     * @param log
+     *            receives progress messages
+     * @return the archive file in the cache
+     */
+    static File fetch(URL url, String sha256, TaskListener log)
+            throws IOException {
+        if (sha256 != null) {
+            sha256 = sha256.toLowerCase(Locale.ENGLISH);
+            // already downloaded, maybe from another URL
+            final File archive = archiveFile(sha256);
+            if (archive.isFile())
+                return archive;
+        }
+        final String key = sha256Hex(url.toExternalForm());
+        Object lock = locks.get(key);
+        if (lock == null) {
+            final Object newLock = new Object();
+            lock = locks.putIfAbsent(key, newLock);
+            if (lock == null)
+                lock = newLock;
+        }
+        synchronized (lock) {
+            final File root = getRootDir();
+            final File index = new File(root, "urls/" + key);
+            if (index.isFile()) {
+                final String cached = FileUtils.readFileToString(index,
+                        "UTF-8").trim();
+                File archive = archiveFile(cached);
+                // the archive behind the URL may have changed
+                if (archive.isFile()
+                        && (sha256 == null || sha256.equals(cached)))
+                    return archive;
+            }
+
+            // kept if the download fails, to resume it later
+            final File part = new File(root, "tmp/" + key + ".part");
+            part.getParentFile().mkdirs();
+            final String digest = download(url, sha256, part, log);
+            File archive = archiveFile(digest);
+            archive.getParentFile().mkdirs();
+            if (!archive.isFile() && !part.renameTo(archive)) {
+                throw new IOException("Failed to move " + part + " to "
+                        + archive);
+            }
+            discard(part);
+            index.getParentFile().mkdirs();
+            FileUtils.writeStringToFile(index, digest, "UTF-8");
+            logger.fine("Cached " + url + " as " + digest);
+            return archiveFile(digest);
+        }
+    }
+
+    /**
+     * Gets the SHA-256 digest of an archive in the cache.
+     *
+     * @param archive
+     *            the file returned by {@link #fetch}
+     * @return the hex encoded digest
+     */
+    static String digestOf(File archive) {
+        final String name = archive.getName();
+        return name.substring(0, name.length() - ".zip".length());
+    }
+
+    private static File archiveFile(String digest) {
+        return new File(getRootDir(), "sha256/" + digest + ".zip");
+    }
+
+    /**
+     * Downloads to the specified file from the best mirror, falling back to the
+     * next mirror on failure.
+     *
+     * @param sha256
+     *            the expected digest or {@code null} if unknown
+     * @return the hex encoded SHA-256 digest of the downloaded file
+     */
+    private static String download(URL url, String sha256, File part,
+            TaskListener log) throws IOException {
+        IOException failure = null;
+        for (String source : Mirrors.candidates(url.toExternalForm())) {
+            final Properties meta = readMeta(part);
+            String validator = meta.getProperty(META_VALIDATOR);
+            if (part.length() == 0 || validator == null
+                    || !source.equals(meta.getProperty(META_SOURCE))) {
+                // not resumable from this source
+                discard(part);
+                validator = null;
+            }
+            log.getLogger().println(
+                    (validator != null ? "Resuming download of "
+                            : "Downloading ") + source
+                            + " to the controller cache");
+            final long start = System.currentTimeMillis();
+            try {
+                final long latency = download(new URL(source), part,
+                        validator, start);
+                final String digest = digestOfFile(part);
+                if (sha256 != null && !sha256.equals(digest)) {
+                    discard(part);
+                    throw new IOException("SHA-256 digest of " + source
+                            + " is " + digest + ", expected " + sha256);
+                }
+                if (sha256 == null) {
+                    checkZip(part, source);
+                }
+                Mirrors.record(source, true, latency);
+                return digest;
+            } catch (IOException ex) {
+                Mirrors.record(source, false, 0);
+                log.getLogger().println(
+                        "Failed to download " + source + ": " + ex);
+                failure = ex;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Downloads to the specified file, resuming a previous partial download
+     * by a HTTP range request if a validator is given.
+     *
+     * @param validator
+     *            the entity tag or modification time the partial download
+     *            was started with, or {@code null} to start over
+     * @return the time until the response started
+     */
+    private static long download(URL url, File part, String validator,
+            long start) throws IOException {
+        final URLConnection con = ProxyConfiguration.open(url);
+        final long offset = validator == null ? 0 : part.length();
+        boolean append = false;
+        if (con instanceof HttpURLConnection) {
+            final HttpURLConnection http = (HttpURLConnection) con;
+            if (offset > 0) {
+                http.setRequestProperty("Range", "bytes=" + offset + "-");
+                http.setRequestProperty("If-Range", validator);
+            }
+            final int code = http.getResponseCode();
+            if (code == 416 && offset > 0) {
+                // the partial download does not fit the content, start over
+                http.disconnect();
+                discard(part);
+                return download(url, part, null, start);
+            }
+            if (code == HttpURLConnection.HTTP_PARTIAL && offset > 0) {
+                final String range = http.getHeaderField("Content-Range");
+                if (range == null
+                        || !range.startsWith("bytes " + offset + "-")) {
+                    http.disconnect();
+                    discard(part);
+                    throw new IOException("Unexpected Content-Range " + range
+                            + " from " + url);
+                }
+                append = true;
+            } else if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Server returned HTTP " + code
+                        + " for " + url);
+            }
+        }
+        if (!append) {
+            // remember what a later range request must match
+            writeMeta(part, url.toExternalForm(), validatorOf(con));
+        }
+        InputStream in = con.getInputStream();
+        final long latency = System.currentTimeMillis() - start;
+        final long copied;
+        try {
+            OutputStream out = new FileOutputStream(part, append);
+            try {
+                copied = IOUtils.copyLarge(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        // a dropped connection may look like the end of the content
+        final String length = con.getHeaderField("Content-Length");
+        if (length != null && copied < Long.parseLong(length.trim())) {
+            throw new IOException("Premature end of " + url + " after "
+                    + copied + " of " + length + " bytes");
+        }
+        return latency;
+    }
+
+    /**
+     * Gets the value for an {@code If-Range} header that identifies the
+     * content of the response.
+     *
+     * @return the strong entity tag or the modification time or {@code null}
+     *         if the response has neither
+     */
+    private static String validatorOf(URLConnection con) {
+        if (!(con instanceof HttpURLConnection))
+            return null;
+        final String etag = con.getHeaderField("ETag");
+        if (etag != null && !etag.startsWith("W/"))
+            return etag;
+        return con.getHeaderField("Last-Modified");
+    }
+
+    private static File metaFile(File part) {
+        return new File(part.getPath() + ".properties");
+    }
+
+    private static Properties readMeta(File part) throws IOException {
+        final Properties meta = new Properties();
+        final File file = metaFile(part);
+        if (file.isFile()) {
+            final InputStream in = new FileInputStream(file);
+            try {
+                meta.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        return meta;
+    }
+
+    private static void writeMeta(File part, String source, String validator)
+            throws IOException {
+        final Properties meta = new Properties();
+        meta.setProperty(META_SOURCE, source);
+        if (validator != null) {
+            meta.setProperty(META_VALIDATOR, validator);
+        }
+        final OutputStream out = new FileOutputStream(metaFile(part));
+        try {
+            meta.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Deletes a partial download.
+     */
+    private static void discard(File part) {
+        part.delete();
+        metaFile(part).delete();
+    }
+
+    /**
+     * Checks that a downloaded file is a complete zip file with intact
+     * entries, discarding it if not.
+     */
+    private static void checkZip(File part, String source) throws IOException {
+        boolean valid = false;
+        final ZipInputStream in = new ZipInputStream(new FileInputStream(part));
+        try {
+            final byte[] buf = new byte[8192];
+            while (in.getNextEntry() != null) {
+                // reading to the end verifies the CRC
+                while (in.read(buf) != -1) {
+                }
+                valid = true;
+            }
+        } catch (IOException ex) {
+            // truncated or corrupt
+            valid = false;
+        } finally {
+            in.close();
+        }
+        if (!valid) {
+            discard(part);
+            throw new IOException(source + " is not a valid zip file");
+        }
+    }
+
+    /**
+     * Computes the hex encoded SHA-256 digest of a file.
+     */
+    private static String digestOfFile(File file) throws IOException {
+        final MessageDigest md = newSha256();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                md.update(buf, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return Util.toHexString(md.digest());
+    }
+
+    private static String sha256Hex(String s) throws IOException {
+        return Util.toHexString(newSha256().digest(s.getBytes("UTF-8")));
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every JRE is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
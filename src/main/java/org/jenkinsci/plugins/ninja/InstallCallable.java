@@ -0,0 +1,565 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.ProxyConfiguration;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import jenkins.MasterToSlaveFileCallable;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Performs the complete check-and-install sequence for a tool directory on
+ * the node in a single remoting call: The up-to-date check, locking, unpacking
+ * to a staging directory, verification and publishing the staging directory
+ * by atomic renames. Optionally, archives are unpacked into a content-addressed
+ * store on the node, keyed by the SHA-256 digest of the archive, and the tool
+ * directory just links to the files in the store.
+ */
+class InstallCallable extends MasterToSlaveFileCallable<InstallCallable.Result> {
+    private static final long serialVersionUID = 1L;
+
+    /** the name of the file that records the URL of the installed archive */
+    static final String INSTALLED_FROM = ".installedFrom";
+    /** the name of the file that marks a complete entry in the store */
+    static final String STORE_COMPLETE = ".complete";
+    /** the suffix of the files a publish moved aside */
+    private static final String ASIDE_SUFFIX = ".old";
+    /** the number of times a failed rename is retried */
+    private static final int RENAME_RETRIES = 5;
+    private static final long RENAME_RETRY_MILLIS = 200;
+
+    /** the URL of the archive to install */
+    private final String url;
+    /**
+     * the stream on the controller to read the archive from or {@code null}
+     * to download from {@link #url}
+     */
+    private final InputStream archive;
+    /**
+     * the URLs to download from on the node, best first, or {@code null} if
+     * the archive must not be downloaded on the node
+     */
+    private final String[] sources;
+    /** the hex encoded SHA-256 digest of the archive or {@code null} */
+    private final String digest;
+    /**
+     * the absolute path of the content-addressed store on the node or
+     * {@code null} to unpack into the tool directory
+     */
+    private final String storeDir;
+
+    private InstallCallable(String url, InputStream archive, String[] sources,
+            String digest, String storeDir) {
+        this.url = url;
+        this.archive = archive;
+        this.sources = sources;
+        this.digest = digest;
+        this.storeDir = storeDir;
+    }
+
+    /**
+     * Creates a callable that downloads the archive on the node, if the tool
+     * is not up-to-date.
+     *
+     * @param sources
+     *            the URLs to download the archive from, tried in order
+     * @param digest
+     *            the hex encoded SHA-256 digest of the archive or {@code null}
+     *            if unknown
+     * @param storeDir
+     *            the absolute path of the content-addressed store on the node
+     *            or {@code null}
+     */
+    static InstallCallable downloading(String url, List<String> sources,
+            String digest, String storeDir) {
+        return new InstallCallable(url, null, sources.toArray(new String[sources
+                .size()]), digest, storeDir);
+    }
+
+    /**
+     * Creates a callable that only checks whether the tool is up-to-date,
+     * returning {@link Status#NEEDS_ARCHIVE} if not.
+     */
+    static InstallCallable checking(String url) {
+        return new InstallCallable(url, null, null, null, null);
+    }
+
+    /**
+     * Creates a callable that unpacks the archive sent from the controller, if
+     * the tool is not up-to-date.
+     *
+     * @param archive
+     *            the stream on the controller to read the archive from
+     * @param digest
+     *            the hex encoded SHA-256 digest of the archive
+     * @param storeDir
+     *            the absolute path of the content-addressed store on the node
+     *            or {@code null}
+     */
+    static InstallCallable streaming(String url, InputStream archive,
+            String digest, String storeDir) {
+        return new InstallCallable(url, new RemoteInputStream(archive,
+                RemoteInputStream.Flag.GREEDY), null, digest, storeDir);
+    }
+
+    public Result invoke(File toolDir, VirtualChannel channel)
+            throws IOException, InterruptedException {
+        final long start = System.currentTimeMillis();
+        try {
+            if (isUpToDate(toolDir) && IntegrityStamp.isIntact(toolDir)) {
+                return new Result(Status.UP_TO_DATE, 0,
+                        System.currentTimeMillis() - start, 0, 0);
+            }
+            if (archive == null && sources == null) {
+                return new Result(Status.NEEDS_ARCHIVE, 0,
+                        System.currentTimeMillis() - start, 0, 0);
+            }
+            final InstallLock.NodeLock lock = InstallLock.lockOnNode(new File(
+                    toolDir.getParentFile(), toolDir.getName() + ".lock"));
+            try {
+                // a concurrent installation might have finished meanwhile
+                boolean damaged = false;
+                if (isUpToDate(toolDir)) {
+                    if (IntegrityStamp.isIntact(toolDir)) {
+                        return new Result(Status.UP_TO_DATE, 0,
+                                System.currentTimeMillis() - start, 0, 0);
+                    }
+                    damaged = true;
+                    discardStoreEntry(toolDir);
+                }
+                final long unpackStart = System.currentTimeMillis();
+                final File staging = new File(toolDir.getParentFile(),
+                        toolDir.getName() + ".staging");
+                final Attempts attempts = new Attempts();
+                long bytes = 0;
+                if (!isUpToDate(staging)) {
+                    bytes = unpack(staging, attempts);
+                }
+                final long publishStart = System.currentTimeMillis();
+                publish(staging, toolDir);
+                final Result result = new Result(Status.INSTALLED, bytes,
+                        unpackStart - start, publishStart - unpackStart,
+                        System.currentTimeMillis() - publishStart);
+                result.source = attempts.source;
+                result.latencyMillis = attempts.latencyMillis;
+                result.failedSources = attempts.failed;
+                result.repaired = damaged;
+                return result;
+            } finally {
+                lock.release();
+            }
+        } finally {
+            if (archive != null) {
+                archive.close();
+            }
+        }
+    }
+
+    /**
+     * Unpacks the archive to the specified staging directory, verifies it and
+     * marks it as complete. If a content-addressed store is used, the archive
+     * is unpacked into the store unless already present there and the staging
+     * directory gets symbolic links to the files in the store.
+     *
+     * @param attempts
+     *            receives the outcome of the download attempts
+     * @return the number of bytes transferred
+     */
+    private long unpack(File staging, Attempts attempts) throws IOException,
+            InterruptedException {
+        long bytes = 0;
+        if (storeDir == null) {
+            final MessageDigest md = digest == null ? null : newSha256();
+            bytes = unzip(staging, md, attempts);
+            verify(staging);
+            if (md != null) {
+                checkDigest(attempts.sha256);
+            }
+        } else {
+            final File store = new File(storeDir);
+            File entry = digest == null ? null : new File(store, digest);
+            if (entry == null || !new File(entry, STORE_COMPLETE).exists()) {
+                store.mkdirs();
+                final File tmp = File.createTempFile("unpack", ".tmp", store);
+                tmp.delete();
+                try {
+                    final MessageDigest md = newSha256();
+                    bytes = unzip(tmp, md, attempts);
+                    verify(tmp);
+                    final String actual = attempts.sha256;
+                    checkDigest(actual);
+                    entry = new File(store, actual);
+                    if (!new File(entry, STORE_COMPLETE).exists()) {
+                        FileUtils.writeStringToFile(new File(tmp,
+                                STORE_COMPLETE), url, "UTF-8");
+                        if (entry.exists()) {
+                            // incomplete, left over from a crash
+                            Util.deleteRecursive(entry);
+                        }
+                        if (!tmp.renameTo(entry) && !entry.exists()) {
+                            throw new IOException("Failed to rename " + tmp
+                                    + " to " + entry);
+                        }
+                    }
+                } finally {
+                    if (tmp.exists()) {
+                        Util.deleteRecursive(tmp);
+                    }
+                }
+            }
+            if (staging.exists()) {
+                Util.deleteContentsRecursive(staging);
+            }
+            staging.mkdirs();
+            link(entry, staging);
+        }
+        IntegrityStamp.write(staging);
+        // marks the staging directory as complete
+        FileUtils.writeStringToFile(new File(staging, INSTALLED_FROM), url,
+                "UTF-8");
+        return bytes;
+    }
+
+    /**
+     * Unpacks the archive sent from the controller or downloads it, trying
+     * each source in turn until one succeeds. A source whose archive does not
+     * have the expected digest counts as failed. The archive is unpacked
+     * while it is downloaded, so an interrupted download is not resumed but
+     * started over from the next source; only the controller cache resumes
+     * downloads.
+     *
+     * @param md
+     *            receives the content of the archive or {@code null}. Its
+     *            hex encoded digest is stored in the attempts.
+     * @return the number of bytes transferred
+     */
+    private long unzip(File dir, MessageDigest md, Attempts attempts)
+            throws IOException {
+        if (archive != null) {
+            final long bytes = StreamingUnzip.unzip(md == null ? archive
+                    : new DigestInputStream(archive, md), dir);
+            if (md != null) {
+                attempts.sha256 = Util.toHexString(md.digest());
+            }
+            return bytes;
+        }
+        IOException failure = null;
+        for (String source : sources) {
+            final long start = System.currentTimeMillis();
+            try {
+                InputStream in = ProxyConfiguration.open(new URL(source))
+                        .getInputStream();
+                final long latency = System.currentTimeMillis() - start;
+                try {
+                    if (md != null) {
+                        md.reset();
+                    }
+                    final long bytes = StreamingUnzip.unzip(md == null ? in
+                            : new DigestInputStream(in, md), dir);
+                    if (md != null) {
+                        attempts.sha256 = Util.toHexString(md.digest());
+                        checkDigest(attempts.sha256);
+                    }
+                    attempts.source = source;
+                    attempts.latencyMillis = latency;
+                    return bytes;
+                } finally {
+                    in.close();
+                }
+            } catch (IOException ex) {
+                attempts.failed.add(source);
+                failure = ex;
+                if (dir.exists()) {
+                    // do not mix files of different sources
+                    Util.deleteContentsRecursive(dir);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    private void checkDigest(String actual) throws IOException {
+        if (digest != null && !digest.equalsIgnoreCase(actual)) {
+            throw new IOException("SHA-256 digest of " + url + " is " + actual
+                    + ", expected " + digest);
+        }
+    }
+
+    private void verify(File dir) throws IOException {
+        if (!new File(dir, "ninja").exists()
+                && !new File(dir, "ninja.exe").exists()) {
+            throw new IOException(url + " does not contain a ninja executable");
+        }
+    }
+
+    /**
+     * Mirrors the directory tree of a store entry, creating symbolic links to
+     * its files. Files are copied if the platform does not support symbolic
+     * links.
+     */
+    private static void link(File from, File to) throws IOException,
+            InterruptedException {
+        final File[] kids = from.listFiles();
+        if (kids == null)
+            return;
+        for (File kid : kids) {
+            final String name = kid.getName();
+            if (STORE_COMPLETE.equals(name))
+                continue;
+            final File target = new File(to, name);
+            if (kid.isDirectory()) {
+                target.mkdirs();
+                link(kid, target);
+            } else {
+                Util.createSymlink(to, kid.getAbsolutePath(), name,
+                        TaskListener.NULL);
+                if (!target.exists()) {
+                    FileUtils.copyFile(kid, target);
+                }
+            }
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every JRE is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Replaces the tool directory by the staging directory. A new tool
+     * directory is published by renaming the staging directory. An existing
+     * tool directory is never removed, as builds might be using it: Its files
+     * are replaced one by one, each by an atomic rename, and the marker of
+     * the installation goes last, so an interrupted publish leaves an
+     * installation that is not up-to-date and is installed again.
+     * <p>
+     * Windows cannot replace a file by a rename, nor delete an executable
+     * that is running, but can rename it. There, each file is renamed aside
+     * first and the file aside is deleted if it is no longer running, else
+     * on the next publish. Renames are retried briefly, as virus scanners
+     * might hold the files open. Must be called under the node lock.
+     */
+    private static void publish(File staging, File target) throws IOException,
+            InterruptedException {
+        if (!target.exists()) {
+            if (!staging.renameTo(target)) {
+                throw new IOException("Failed to rename " + staging + " to "
+                        + target);
+            }
+            return;
+        }
+        deleteAside(target);
+        // no longer up-to-date until complete
+        final File marker = new File(target, INSTALLED_FROM);
+        if (marker.exists() && !marker.delete()) {
+            throw new IOException("Failed to delete " + marker);
+        }
+        // nor is the staging directory, once files are taken from it
+        final File pending = new File(target, INSTALLED_FROM + ".pending");
+        pending.delete(); // left over from an interrupted publish
+        rename(new File(staging, INSTALLED_FROM), pending);
+        final String[] names = staging.list();
+        if (names == null)
+            throw new IOException("Failed to list " + staging);
+        // remove what the new installation does not have
+        final File[] kids = target.listFiles();
+        if (kids != null) {
+            final List<String> keep = Arrays.asList(names);
+            for (File kid : kids) {
+                if (!keep.contains(kid.getName()) && !kid.equals(pending)
+                        && !kid.getName().equals(InstallUsage.LAST_USED)
+                        && !kid.getName().endsWith(ASIDE_SUFFIX)) {
+                    Util.deleteRecursive(kid);
+                }
+            }
+        }
+        for (String name : names) {
+            replace(new File(staging, name), new File(target, name));
+        }
+        rename(pending, marker);
+        Util.deleteRecursive(staging);
+        deleteAside(target);
+    }
+
+    /**
+     * Replaces a file or directory by an atomic rename, moving the existing
+     * one aside if the platform cannot rename over it.
+     */
+    private static void replace(File from, File to) throws IOException,
+            InterruptedException {
+        if (to.isDirectory() && !Util.isSymlink(to)) {
+            // a directory cannot be renamed over
+            final File aside = asideOf(to);
+            rename(to, aside);
+        }
+        for (int attempt = 0;; attempt++) {
+            if (from.renameTo(to))
+                return;
+            if (to.exists()) {
+                // Windows, rename the possibly running file aside
+                rename(to, asideOf(to));
+                if (from.renameTo(to))
+                    return;
+            }
+            if (attempt >= RENAME_RETRIES)
+                throw new IOException("Failed to rename " + from + " to "
+                        + to);
+            Thread.sleep(RENAME_RETRY_MILLIS);
+        }
+    }
+
+    private static void rename(File from, File to) throws IOException,
+            InterruptedException {
+        for (int attempt = 0; !from.renameTo(to); attempt++) {
+            if (attempt >= RENAME_RETRIES)
+                throw new IOException("Failed to rename " + from + " to "
+                        + to);
+            Thread.sleep(RENAME_RETRY_MILLIS);
+        }
+    }
+
+    private static File asideOf(File file) {
+        return new File(file.getParentFile(), file.getName() + "."
+                + System.nanoTime() + ASIDE_SUFFIX);
+    }
+
+    /**
+     * Deletes the files moved aside by a publish, except those still running.
+     */
+    private static void deleteAside(File dir) {
+        final File[] kids = dir.listFiles();
+        if (kids == null)
+            return;
+        for (File kid : kids) {
+            if (kid.getName().endsWith(ASIDE_SUFFIX)) {
+                try {
+                    Util.deleteRecursive(kid);
+                } catch (IOException ignore) {
+                    // still running, try again on the next publish
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the entry in the content-addressed store the damaged ninja
+     * executable in the tool directory links to, so that it is unpacked
+     * again.
+     */
+    private void discardStoreEntry(File toolDir) throws IOException,
+            InterruptedException {
+        if (storeDir == null)
+            return;
+        final File exe = IntegrityStamp.executableIn(toolDir);
+        if (exe == null)
+            return;
+        final String store = new File(storeDir).getCanonicalPath()
+                + File.separator;
+        final String target = exe.getCanonicalPath();
+        if (target.startsWith(store)) {
+            final String rel = target.substring(store.length());
+            final int sep = rel.indexOf(File.separatorChar);
+            if (sep > 0) {
+                Util.deleteRecursive(new File(store, rel.substring(0, sep)));
+            }
+        }
+    }
+
+    private boolean isUpToDate(File dir) throws IOException {
+        final File marker = new File(dir, INSTALLED_FROM);
+        return marker.isFile()
+                && url.equals(FileUtils.readFileToString(marker, "UTF-8"));
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * The outcome of the download attempts on the node.
+     */
+    private static final class Attempts {
+        /** the URL the archive was downloaded from or {@code null} */
+        String source;
+        /** the time until the response from {@link #source} started */
+        long latencyMillis;
+        /** the URLs that failed */
+        final ArrayList<String> failed = new ArrayList<String>();
+        /** the hex encoded SHA-256 digest of the archive or {@code null} */
+        String sha256;
+    } // Attempts
+
+    static enum Status {
+        /** the tool was already installed */
+        UP_TO_DATE,
+        /** the tool was installed by this call */
+        INSTALLED,
+        /** the tool is not up-to-date and the archive must be provided */
+        NEEDS_ARCHIVE
+    }
+
+    /**
+     * The outcome of an installation.
+     */
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final Status status;
+        /** the number of archive bytes transferred */
+        final long bytes;
+        /** the time spent checking whether the tool is up-to-date */
+        final long checkMillis;
+        /**
+         * the time spent downloading, unpacking and verifying the archive.
+         * These overlap since the archive is unpacked while it is read.
+         */
+        final long unpackMillis;
+        /** the time spent publishing the staging directory */
+        final long publishMillis;
+        /**
+         * the URL the node downloaded the archive from or {@code null} if not
+         * downloaded on the node
+         */
+        String source;
+        /** the time until the response from {@link #source} started */
+        long latencyMillis;
+        /** the URLs the node failed to download the archive from */
+        List<String> failedSources = Collections.emptyList();
+        /** whether a damaged installation was replaced */
+        boolean repaired;
+
+        Result(Status status, long bytes, long checkMillis, long unpackMillis,
+                long publishMillis) {
+            this.status = status;
+            this.bytes = bytes;
+            this.checkMillis = checkMillis;
+            this.unpackMillis = unpackMillis;
+            this.publishMillis = publishMillis;
+        }
+    } // Result
+}
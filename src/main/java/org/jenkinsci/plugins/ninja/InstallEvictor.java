@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Deletes the least recently used ninja installations on each node, as long
+ * as the installations take more disk space than the node´s quota.
+ * Installations in use by running builds or used recently are never deleted.
+ */
+@Extension
+public class InstallEvictor extends AsyncPeriodicWork {
+
+    public InstallEvictor() {
+        super("Ninja installation eviction");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.HOURS.toMillis(1);
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException,
+            InterruptedException {
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        final int defaultQuota = config == null ? 0 : config
+                .getInstallQuotaMB();
+        for (Computer c : Jenkins.getInstance().getComputers()) {
+            final Node node = c.getNode();
+            if (node == null || c.isOffline())
+                continue;
+            final NinjaNodeProperty property = node.getNodeProperties().get(
+                    NinjaNodeProperty.class);
+            final int quota = property != null
+                    && property.getInstallQuotaMB() > 0 ? property
+                    .getInstallQuotaMB() : defaultQuota;
+            if (quota <= 0)
+                continue;
+            final FilePath root = node.getRootPath();
+            if (root == null)
+                continue;
+            final FilePath toolsDir = root.child("tools").child(
+                    NinjaTool.class.getName());
+            try {
+                if (!toolsDir.isDirectory())
+                    continue;
+                final Set<String> inUse = InstallUsage.getInUse(node
+                        .getNodeName());
+                final List<String> evicted = toolsDir.act(new Evict(
+                        quota * 1024L * 1024L, inUse
+                                .toArray(new String[inUse.size()])));
+                if (!evicted.isEmpty()) {
+                    for (String dir : evicted) {
+                        listener.getLogger().println(
+                                "Evicted " + dir + " on "
+                                        + node.getDisplayName());
+                        InstallUsage.forget(node.getNodeName(), dir);
+                    }
+                    ToolResolutionCache.invalidate(node.getNodeName());
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace(listener.error("Failed to evict ninja"
+                        + " installations on " + node.getDisplayName()));
+            }
+        }
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * Deletes the least recently used installations. Must be invoked on the
+     * directory holding the installations.
+     */
+    private static class Evict extends MasterToSlaveFileCallable<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final long quotaBytes;
+        /** the absolute paths of the installations in use */
+        private final String[] inUse;
+
+        Evict(long quotaBytes, String[] inUse) {
+            this.quotaBytes = quotaBytes;
+            this.inUse = inUse;
+        }
+
+        public List<String> invoke(File toolsDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final File[] dirs = toolsDir.listFiles();
+            if (dirs == null)
+                return Collections.emptyList();
+            final List<File> lru = new ArrayList<File>();
+            final Map<File, Long> used = new HashMap<File, Long>();
+            long total = 0;
+            for (File dir : dirs) {
+                if (new File(dir, InstallCallable.INSTALLED_FROM).isFile()) {
+                    lru.add(dir);
+                    used.put(dir, lastUsed(dir));
+                    // symbolic links into the node store are not counted
+                    total += FileUtils.sizeOfDirectory(dir);
+                }
+            }
+            if (total <= quotaBytes)
+                return Collections.emptyList();
+
+            Collections.sort(lru, new Comparator<File>() {
+                public int compare(File a, File b) {
+                    final long ua = used.get(a);
+                    final long ub = used.get(b);
+                    return ua < ub ? -1 : (ua == ub ? 0 : 1);
+                }
+            });
+            final List<String> keep = Arrays.asList(inUse);
+            final List<String> evicted = new ArrayList<String>();
+            for (File dir : lru) {
+                if (total <= quotaBytes)
+                    break;
+                if (keep.contains(dir.getAbsolutePath()))
+                    continue;
+                // do not race with an installation or a build starting to use
+                // it, both take this lock
+                final InstallLock.NodeLock lock = InstallLock
+                        .lockOnNode(new File(toolsDir, dir.getName() + ".lock"));
+                try {
+                    // re-check the marker under the lock
+                    final long idle = System.currentTimeMillis()
+                            - lastUsed(dir);
+                    if (!new File(dir, InstallCallable.INSTALLED_FROM).isFile()
+                            || idle < InstallUsage.KEEP_MILLIS) {
+                        // used or installed recently
+                        continue;
+                    }
+                    final long size = FileUtils.sizeOfDirectory(dir);
+                    Util.deleteRecursive(dir);
+                    total -= size;
+                    evicted.add(dir.getAbsolutePath());
+                } finally {
+                    lock.release();
+                }
+            }
+            return evicted;
+        }
+
+        /**
+         * Gets the time the installation was used last, or installed if it
+         * was never used.
+         */
+        private static long lastUsed(File dir) {
+            final File marker = new File(dir, InstallUsage.LAST_USED);
+            return Math.max(marker.lastModified(), new File(dir,
+                    InstallCallable.INSTALLED_FROM).lastModified());
+        }
+    } // Evict
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes installations into the same tool directory on a node. Builds
+ * running on the same controller are coordinated in-memory on the controller.
+ * On the node, a file lock next to the tool directory coordinates with
+ * installations that were started before a controller restart or by another
+ * controller sharing the node; the operating system releases that lock if the
+ * node´s JVM dies.
+ */
+final class InstallLock {
+
+    /**
+     * the in-memory locks, on the controller keyed by node and tool directory,
+     * on a node keyed by lock file
+     */
+    private static final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<String, ReentrantLock>();
+
+    private final ReentrantLock lock;
+
+    private InstallLock(ReentrantLock lock) {
+        this.lock = lock;
+    }
+
+    /**
+     * Acquires the controller-side lock for the specified tool directory,
+     * waiting for a concurrent installation to finish.
+     *
+     * @param node
+     *            the node to install on
+     * @param toolPath
+     *            the tool directory on the node
+     * @param log
+     *            receives a message if the lock is held by another build
+     */
+    static InstallLock acquire(Node node, FilePath toolPath, TaskListener log)
+            throws InterruptedException {
+        final ReentrantLock lock = getLock(node.getNodeName() + ':'
+                + toolPath.getRemote());
+        if (!lock.tryLock()) {
+            log.getLogger().println(
+                    "Waiting for a concurrent installation to " + toolPath
+                            + " on " + node.getDisplayName());
+            lock.lockInterruptibly();
+        }
+        return new InstallLock(lock);
+    }
+
+    /**
+     * Releases this lock.
+     */
+    void release() {
+        lock.unlock();
+    }
+
+    /**
+     * Acquires the node-side lock on the specified lock file. Must be called
+     * on the node.
+     */
+    static NodeLock lockOnNode(File lockFile) throws IOException,
+            InterruptedException {
+        final ReentrantLock lock = getLock(lockFile.getAbsolutePath());
+        // file locks are held by the whole JVM, so serialize threads first
+        lock.lockInterruptibly();
+        try {
+            lockFile.getParentFile().mkdirs();
+            final RandomAccessFile file = new RandomAccessFile(lockFile, "rw");
+            try {
+                return new NodeLock(lock, file, file.getChannel().lock());
+            } catch (IOException ex) {
+                file.close();
+                throw ex;
+            }
+        } catch (IOException ex) {
+            lock.unlock();
+            throw ex;
+        }
+    }
+
+    private static ReentrantLock getLock(String key) {
+        ReentrantLock lock = locks.get(key);
+        if (lock == null) {
+            final ReentrantLock newLock = new ReentrantLock();
+            lock = locks.putIfAbsent(key, newLock);
+            if (lock == null)
+                lock = newLock;
+        }
+        return lock;
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * A lock held on a node.
+     */
+    static final class NodeLock {
+        private final ReentrantLock lock;
+        private final RandomAccessFile file;
+        private final FileLock fileLock;
+
+        private NodeLock(ReentrantLock lock, RandomAccessFile file,
+                FileLock fileLock) {
+            this.lock = lock;
+            this.file = file;
+            this.fileLock = fileLock;
+        }
+
+        /**
+         * Releases this lock.
+         */
+        void release() throws IOException {
+            try {
+                fileLock.release();
+                file.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+    } // NodeLock
+}
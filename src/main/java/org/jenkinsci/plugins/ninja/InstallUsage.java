@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.FilePath;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Tracks which tool installations on the nodes are in use by running builds
+ * and when they were used last, and checks they are still intact. The last
+ * use is recorded in a marker file in the tool directory. To save round-trips
+ * to the node, an installation is checked and its marker touched in a single
+ * call, at most once per {@link #CHECK_INTERVAL_MILLIS}. The marker is touched
+ * under the same node lock the {@link InstallEvictor} deletes installations
+ * under.
+ * <p>
+ * The running builds are counted in the memory of the controller only. After
+ * a restart of the controller, builds that kept running on their nodes are
+ * protected by the marker file alone, that is, for {@link #KEEP_MILLIS} after
+ * it was touched last.
+ */
+final class InstallUsage {
+    /** the name of the file whose modification time is the last use */
+    static final String LAST_USED = ".lastUsed";
+    /** the time after its last use an installation is not evicted */
+    static final long KEEP_MILLIS = TimeUnit.HOURS.toMillis(1);
+    /** the minimum time between two checks of an installation */
+    private static final long CHECK_INTERVAL_MILLIS = Long.getLong(
+            InstallUsage.class.getName() + ".checkIntervalSeconds", 300) * 1000;
+    private static final String SEP = "\0";
+
+    /** the number of running builds per node and tool directory */
+    private static final Map<String, Integer> inUse = new HashMap<String, Integer>();
+    /** the time of the last check per node and tool directory */
+    private static final ConcurrentMap<String, Long> touched = new ConcurrentHashMap<String, Long>();
+
+    private InstallUsage() {
+    }
+
+    /**
+     * Records that a build starts using the specified tool directory of an
+     * installation made by the {@link NinjaInstaller}.
+     *
+     * @return {@code false} if the directory was found to be deleted or its
+     *         ninja executable missing or damaged, it must be installed
+     *         again. The build uses it nonetheless and must {@link #release}
+     *         it.
+     * @throws IOException
+     *             if the check failed, the directory is not acquired then
+     */
+    static boolean acquire(Node node, FilePath toolDir) throws IOException,
+            InterruptedException {
+        final String key = node.getNodeName() + SEP + toolDir.getRemote();
+        synchronized (inUse) {
+            final Integer count = inUse.get(key);
+            inUse.put(key, count == null ? 1 : count + 1);
+        }
+        boolean acquired = false;
+        try {
+            final long now = System.currentTimeMillis();
+            final Long last = touched.get(key);
+            if (last == null || now - last >= CHECK_INTERVAL_MILLIS) {
+                touched.put(key, now);
+                final boolean intact = toolDir.act(new Use());
+                acquired = true;
+                if (!intact) {
+                    touched.remove(key);
+                    return false;
+                }
+            }
+            acquired = true;
+            return true;
+        } finally {
+            if (!acquired) {
+                // the check failed, the build will not release it
+                touched.remove(key);
+                release(node, toolDir);
+            }
+        }
+    }
+
+    /**
+     * Records that a build stopped using the specified tool directory.
+     */
+    static void release(Node node, FilePath toolDir) {
+        final String key = node.getNodeName() + SEP + toolDir.getRemote();
+        synchronized (inUse) {
+            final Integer count = inUse.get(key);
+            if (count == null || count <= 1) {
+                inUse.remove(key);
+            } else {
+                inUse.put(key, count - 1);
+            }
+        }
+    }
+
+    /**
+     * Gets the tool directories on the specified node in use by running
+     * builds.
+     *
+     * @return the absolute paths of the directories
+     */
+    static Set<String> getInUse(String nodeName) {
+        final String prefix = nodeName + SEP;
+        final Set<String> dirs = new HashSet<String>();
+        synchronized (inUse) {
+            for (String key : inUse.keySet()) {
+                if (key.startsWith(prefix)) {
+                    dirs.add(key.substring(prefix.length()));
+                }
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Forgets when the specified tool directory was checked, after it was
+     * deleted.
+     */
+    static void forget(String nodeName, String toolDir) {
+        touched.remove(nodeName + SEP + toolDir);
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * Checks the installation is intact and touches the marker file of the
+     * last use. Must be invoked on the tool directory. Returns {@code false}
+     * if the directory, its install marker or its ninja executable does not
+     * exist or the executable is damaged.
+     */
+    private static class Use extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        public Boolean invoke(File dir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final InstallLock.NodeLock lock = InstallLock
+                    .lockOnNode(new File(dir.getParentFile(), dir.getName()
+                            + ".lock"));
+            try {
+                if (!new File(dir, InstallCallable.INSTALLED_FROM).isFile()
+                        || !IntegrityStamp.isIntact(dir))
+                    return false;
+                final File marker = new File(dir, LAST_USED);
+                if (!marker.setLastModified(System.currentTimeMillis())) {
+                    marker.createNewFile();
+                }
+                return true;
+            } finally {
+                lock.release();
+            }
+        }
+    } // Use
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Records the SHA-256 digest, size and modification time of the installed
+ * ninja executable and checks it is still intact. The check only compares the
+ * size and modification time; the executable is hashed again only if these
+ * changed. Runs on the node.
+ */
+final class IntegrityStamp {
+    /** the name of the file that holds the stamp */
+    static final String FILE_NAME = ".integrity";
+
+    private IntegrityStamp() {
+    }
+
+    /**
+     * Stamps the ninja executable in the specified tool directory.
+     */
+    static void write(File dir) throws IOException {
+        final File exe = executableIn(dir);
+        if (exe == null)
+            throw new IOException(dir + " does not contain a ninja executable");
+        write(dir, exe, sha256Of(exe));
+    }
+
+    /**
+     * Checks whether the ninja executable in the specified tool directory is
+     * intact. Installations without a stamp, made by previous versions, are
+     * stamped and trusted.
+     *
+     * @return {@code false} if the executable is missing or damaged
+     */
+    static boolean isIntact(File dir) throws IOException {
+        final File exe = executableIn(dir);
+        if (exe == null)
+            return false;
+        final File file = new File(dir, FILE_NAME);
+        if (!file.isFile()) {
+            write(dir, exe, sha256Of(exe));
+            return true;
+        }
+        final Properties stamp = new Properties();
+        final InputStream in = new FileInputStream(file);
+        try {
+            stamp.load(in);
+        } finally {
+            in.close();
+        }
+        if (String.valueOf(exe.length()).equals(stamp.getProperty("size"))
+                && String.valueOf(exe.lastModified()).equals(
+                        stamp.getProperty("mtime")))
+            return true;
+        // touched or damaged
+        final String digest = sha256Of(exe);
+        if (!digest.equals(stamp.getProperty("sha256")))
+            return false;
+        write(dir, exe, digest);
+        return true;
+    }
+
+    /**
+     * Gets the ninja executable in the specified tool directory.
+     *
+     * @return the executable or {@code null} if none
+     */
+    static File executableIn(File dir) {
+        File exe = new File(dir, "ninja");
+        if (exe.isFile())
+            return exe;
+        exe = new File(dir, "ninja.exe");
+        return exe.isFile() ? exe : null;
+    }
+
+    private static void write(File dir, File exe, String digest)
+            throws IOException {
+        final Properties stamp = new Properties();
+        stamp.setProperty("file", exe.getName());
+        stamp.setProperty("sha256", digest);
+        stamp.setProperty("size", String.valueOf(exe.length()));
+        stamp.setProperty("mtime", String.valueOf(exe.lastModified()));
+        // concurrent checks may write, too
+        final File tmp = File.createTempFile(FILE_NAME, ".tmp", dir);
+        try {
+            final OutputStream out = new FileOutputStream(tmp);
+            try {
+                stamp.store(out, null);
+            } finally {
+                out.close();
+            }
+            final File file = new File(dir, FILE_NAME);
+            file.delete();
+            if (!tmp.renameTo(file) && !file.isFile()) {
+                throw new IOException("Failed to rename " + tmp + " to "
+                        + file);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static String sha256Of(File file) throws IOException {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every JRE is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                md.update(buf, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return Util.toHexString(md.digest());
+    }
+}
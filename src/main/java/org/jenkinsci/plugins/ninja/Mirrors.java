@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the mirror to download a ninja archive from. A mirror serves the
+ * archives under the same path as the original download site; its base URL
+ * replaces the scheme, host and port of the original URL. Healthy mirrors are
+ * tried in the order of their measured latency, mirrors not yet measured
+ * first and in their configured order. A mirror that failed is skipped for a
+ * back-off time that grows with each consecutive failure. The original URL is
+ * always the last resort.
+ */
+final class Mirrors {
+    /** the weight of a new latency sample in the moving average */
+    private static final double ALPHA = 0.3;
+    /** the back-off time after the first failure */
+    private static final long BACKOFF_MILLIS = 60 * 1000L;
+    /** the maximum back-off time */
+    private static final long MAX_BACKOFF_MILLIS = 30 * 60 * 1000L;
+
+    /** the health of each mirror, keyed by base URL */
+    private static final Map<String, Health> health = new HashMap<String, Health>();
+
+    private Mirrors() {
+    }
+
+    /**
+     * Gets the URLs to try to download an archive from, best first.
+     *
+     * @param url
+     *            the original URL of the archive
+     */
+    static List<String> candidates(String url) {
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        final List<String> bases = config == null ? Collections
+                .<String> emptyList() : config.getMirrorList();
+        if (bases.isEmpty())
+            return Collections.singletonList(url);
+        final String path;
+        try {
+            path = pathOf(url);
+        } catch (MalformedURLException ex) {
+            return Collections.singletonList(url);
+        }
+
+        final long now = System.currentTimeMillis();
+        final List<String> healthy = new ArrayList<String>();
+        final List<String> failing = new ArrayList<String>();
+        final Map<String, Double> latency = new HashMap<String, Double>();
+        synchronized (health) {
+            for (String base : bases) {
+                final Health h = health.get(base);
+                if (h != null && h.retryAt > now) {
+                    failing.add(base);
+                } else {
+                    healthy.add(base);
+                    latency.put(base, h == null ? -1 : h.latencyMillis);
+                }
+            }
+        }
+        // stable, so unmeasured mirrors keep their configured order
+        Collections.sort(healthy, new Comparator<String>() {
+            public int compare(String a, String b) {
+                return Double.compare(latency.get(a), latency.get(b));
+            }
+        });
+
+        final List<String> urls = new ArrayList<String>();
+        for (String base : healthy) {
+            urls.add(base + path);
+        }
+        for (String base : failing) {
+            // better than nothing
+            urls.add(base + path);
+        }
+        if (!urls.contains(url)) {
+            urls.add(url);
+        }
+        return urls;
+    }
+
+    /**
+     * Records the outcome of a download attempt.
+     *
+     * @param url
+     *            the URL returned by {@link #candidates}
+     * @param success
+     *            whether the download succeeded
+     * @param latencyMillis
+     *            the time until the response started
+     */
+    static void record(String url, boolean success, long latencyMillis) {
+        final String base = baseOf(url);
+        if (base == null)
+            return;
+        synchronized (health) {
+            Health h = health.get(base);
+            if (h == null) {
+                h = new Health();
+                health.put(base, h);
+            }
+            if (success) {
+                h.failures = 0;
+                h.retryAt = 0;
+                h.latencyMillis = h.latencyMillis < 0 ? latencyMillis : ALPHA
+                        * latencyMillis + (1 - ALPHA) * h.latencyMillis;
+            } else {
+                h.failures++;
+                final long backoff = Math.min(BACKOFF_MILLIS << Math.min(
+                        h.failures - 1, 10), MAX_BACKOFF_MILLIS);
+                h.retryAt = System.currentTimeMillis() + backoff;
+            }
+        }
+    }
+
+    /**
+     * Gets the configured mirror base URL the specified URL was derived from.
+     *
+     * @return the base URL or {@code null} if the URL is not on a mirror
+     */
+    private static String baseOf(String url) {
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        if (config == null)
+            return null;
+        for (String base : config.getMirrorList()) {
+            if (url.startsWith(base + "/"))
+                return base;
+        }
+        return null;
+    }
+
+    private static String pathOf(String url) throws MalformedURLException {
+        final URL u = new URL(url);
+        return u.getFile();
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    private static final class Health {
+        /** the moving average of the latency or {@code -1} if not measured */
+        double latencyMillis = -1;
+        /** the number of consecutive failures */
+        int failures;
+        /** the time before which the mirror is not tried first */
+        long retryAt;
+    } // Health
+}
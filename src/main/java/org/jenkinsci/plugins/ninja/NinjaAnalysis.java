@@ -0,0 +1,553 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import jenkins.MasterToSlaveFileCallable;
+import net.sf.json.util.JSONUtils;
+
+/**
+ * Analyzes why a ninja build took as long as it did: Computes the critical
+ * path through the edges built, the number of edges running concurrently over
+ * time and the edges that ran while nothing else did. The dependencies
+ * between edges are taken from the output of {@code ninja -t graph} and
+ * {@code ninja -t deps}.
+ */
+public final class NinjaAnalysis {
+    /** the maximum number of buckets of the concurrency profile */
+    static final int MAX_PROFILE_BUCKETS = 600;
+    /** the number of serializing edges to report */
+    private static final int TOP_N = 10;
+
+    private NinjaAnalysis() {
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * A path and a time span. Public, since the build page renders its
+     * properties.
+     */
+    public static final class TimedPath implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String path;
+        final int millis;
+
+        TimedPath(String path, int millis) {
+            this.path = path;
+            this.millis = millis;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getMillis() {
+            return millis;
+        }
+    } // TimedPath
+
+    /**
+     * The result of the analysis.
+     */
+    static final class Report implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** the duration of the critical path in milliseconds */
+        final long criticalPathMillis;
+        /** the edges on the critical path, in build order */
+        final List<TimedPath> criticalPath;
+        /** the edges that ran alone the longest, longest first */
+        final List<TimedPath> serializing;
+        /** the length of a bucket of the concurrency profile in seconds */
+        final int bucketSeconds;
+        /** the average number of running edges per bucket */
+        final float[] concurrency;
+
+        Report(long criticalPathMillis, List<TimedPath> criticalPath,
+                List<TimedPath> serializing, int bucketSeconds,
+                float[] concurrency) {
+            this.criticalPathMillis = criticalPathMillis;
+            this.criticalPath = criticalPath;
+            this.serializing = serializing;
+            this.bucketSeconds = bucketSeconds;
+            this.concurrency = concurrency;
+        }
+    } // Report
+
+    /**
+     * Runs the analysis on the node. Must be invoked on the ninja build
+     * directory. Writes a Chrome trace of the edges to the specified stream
+     * on the controller.
+     */
+    static class Analyze extends MasterToSlaveFileCallable<Report> {
+        private static final long serialVersionUID = 1L;
+
+        private static final Pattern NODE = Pattern
+                .compile("^\"([^\"]+)\" \\[label=\"(.*)\"(, shape=ellipse)?\\]$");
+        private static final Pattern ARROW = Pattern
+                .compile("^\"([^\"]+)\" -> \"([^\"]+)\"");
+
+        /** the end of the log file before the build */
+        private final NinjaLog.Position from;
+        /** the ninja executable */
+        private final String ninja;
+        private final OutputStream trace;
+
+        /**
+         * @param from
+         *            the end of the ninja log file before the build
+         * @param ninja
+         *            the path of the ninja executable on the node
+         * @param trace
+         *            the stream on the controller to write the gzip compressed
+         *            Chrome trace to
+         */
+        Analyze(NinjaLog.Position from, String ninja, OutputStream trace) {
+            this.from = from;
+            this.ninja = ninja;
+            this.trace = new RemoteOutputStream(trace);
+        }
+
+        public Report invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            try {
+                // the edges built and their outputs
+                final List<NinjaLog.Edge> edges = new ArrayList<NinjaLog.Edge>();
+                final Map<String, Integer> edgeByOutput = new HashMap<String, Integer>();
+                final long wallMillis = NinjaLog.parse(new File(buildDir,
+                        NinjaLog.FILE_NAME), from, new NinjaLog.LogVisitor() {
+                    public void edge(int start, int end, String path) {
+                        edges.add(new NinjaLog.Edge(path, start, end));
+                        edgeByOutput.put(path, edges.size() - 1);
+                    }
+
+                    public void output(String path) {
+                        edgeByOutput.put(path, edges.size() - 1);
+                    }
+                });
+                writeTrace(edges);
+                if (edges.isEmpty()) {
+                    return new Report(0, Collections.<TimedPath> emptyList(),
+                            Collections.<TimedPath> emptyList(), 1,
+                            new float[0]);
+                }
+                final Map<String, Set<String>> inputs = new HashMap<String, Set<String>>();
+                readGraph(buildDir, inputs);
+                readDeps(buildDir, inputs);
+                return analyze(edges, edgeByOutput, inputs, wallMillis);
+            } finally {
+                trace.close();
+            }
+        }
+
+        /**
+         * Runs {@code ninja -t graph} and parses its output.
+         *
+         * @param inputs
+         *            receives the inputs of each node
+         */
+        private void readGraph(File buildDir, Map<String, Set<String>> inputs)
+                throws IOException, InterruptedException {
+            final ToolProcess tool = run(buildDir, "graph");
+            try {
+                parseGraph(tool.getOutput(), inputs);
+                tool.waitFor();
+            } finally {
+                tool.close();
+            }
+        }
+
+        /**
+         * Parses the output of {@code ninja -t graph}.
+         *
+         * @param inputs
+         *            receives the inputs of each node
+         */
+        static void parseGraph(BufferedReader reader,
+                Map<String, Set<String>> inputs) throws IOException {
+            final Map<String, String> labels = new HashMap<String, String>();
+            final Set<String> edgeNodes = new HashSet<String>();
+            final List<String[]> arrows = new ArrayList<String[]>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher m = ARROW.matcher(line);
+                if (m.find()) {
+                    arrows.add(new String[] { m.group(1), m.group(2) });
+                } else if ((m = NODE.matcher(line)).matches()) {
+                    if (m.group(3) != null) {
+                        edgeNodes.add(m.group(1));
+                    } else {
+                        labels.put(m.group(1), m.group(2));
+                    }
+                }
+            }
+            // edges with several inputs or outputs are drawn as a node of
+            // their own
+            final Map<String, List<String>> edgeInputs = new HashMap<String, List<String>>();
+            for (String[] arrow : arrows) {
+                if (edgeNodes.contains(arrow[1])) {
+                    List<String> in = edgeInputs.get(arrow[1]);
+                    if (in == null) {
+                        in = new ArrayList<String>();
+                        edgeInputs.put(arrow[1], in);
+                    }
+                    in.add(labels.get(arrow[0]));
+                }
+            }
+            for (String[] arrow : arrows) {
+                if (edgeNodes.contains(arrow[1]))
+                    continue;
+                final String output = labels.get(arrow[1]);
+                if (edgeNodes.contains(arrow[0])) {
+                    final List<String> in = edgeInputs.get(arrow[0]);
+                    if (in != null) {
+                        for (String input : in) {
+                            addInput(inputs, output, input);
+                        }
+                    }
+                } else {
+                    addInput(inputs, output, labels.get(arrow[0]));
+                }
+            }
+        }
+
+        /**
+         * Runs {@code ninja -t deps} and parses its output.
+         *
+         * @param inputs
+         *            receives the inputs of each node
+         */
+        private void readDeps(File buildDir, Map<String, Set<String>> inputs)
+                throws IOException, InterruptedException {
+            final ToolProcess tool = run(buildDir, "deps");
+            try {
+                parseDeps(tool.getOutput(), inputs);
+                tool.waitFor();
+            } finally {
+                tool.close();
+            }
+        }
+
+        /**
+         * Parses the output of {@code ninja -t deps}.
+         *
+         * @param inputs
+         *            receives the inputs of each node
+         */
+        static void parseDeps(BufferedReader reader,
+                Map<String, Set<String>> inputs) throws IOException {
+            String output = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 0) {
+                    output = null;
+                } else if (line.startsWith(" ")) {
+                    if (output != null) {
+                        addInput(inputs, output, line.trim());
+                    }
+                } else {
+                    final int idx = line.indexOf(": #deps");
+                    output = idx > 0 ? line.substring(0, idx) : null;
+                }
+            }
+        }
+
+        private static void addInput(Map<String, Set<String>> inputs,
+                String output, String input) {
+            if (output == null || input == null)
+                return;
+            Set<String> in = inputs.get(output);
+            if (in == null) {
+                in = new HashSet<String>();
+                inputs.put(output, in);
+            }
+            in.add(input);
+        }
+
+        /**
+         * Runs a ninja tool, reading its standard output.
+         */
+        private ToolProcess run(File buildDir, String tool) throws IOException {
+            return new ToolProcess(buildDir, Arrays.asList(ninja, "-t", tool),
+                    false);
+        }
+
+        /**
+         * Computes the critical path, the concurrency profile and the edges
+         * that ran alone.
+         *
+         * @param edges
+         *            the edges built
+         * @param edgeByOutput
+         *            the index in {@code edges} of the edge building each
+         *            output
+         * @param inputs
+         *            the inputs of each node of the build graph
+         * @param wallMillis
+         *            the summed up wall time of all ninja invocations
+         */
+        static Report analyze(final List<NinjaLog.Edge> edges,
+                Map<String, Integer> edgeByOutput,
+                Map<String, Set<String>> inputs, long wallMillis) {
+            final int n = edges.size();
+            // the edges each edge depends on
+            final int[][] deps = new int[n][];
+            for (int i = 0; i < n; i++) {
+                final Set<Integer> d = new LinkedHashSet<Integer>();
+                collectDeps(edges.get(i).path, edgeByOutput, inputs, d, i);
+                deps[i] = new int[d.size()];
+                int j = 0;
+                for (Integer dep : d) {
+                    deps[i][j++] = dep;
+                }
+            }
+
+            // longest path, iteratively to avoid stack overflows
+            final long[] finish = new long[n];
+            final int[] pred = new int[n];
+            final byte[] state = new byte[n]; // 0: new, 1: visiting, 2: done
+            Arrays.fill(pred, -1);
+            final Deque<Integer> stack = new ArrayDeque<Integer>();
+            for (int root = 0; root < n; root++) {
+                if (state[root] != 0)
+                    continue;
+                stack.push(root);
+                while (!stack.isEmpty()) {
+                    final int e = stack.peek();
+                    if (state[e] == 0) {
+                        state[e] = 1;
+                        for (int d : deps[e]) {
+                            if (state[d] == 0)
+                                stack.push(d);
+                        }
+                    } else {
+                        stack.pop();
+                        if (state[e] == 2)
+                            continue;
+                        long best = 0;
+                        for (int d : deps[e]) {
+                            // ignore cycles, which should not exist anyway
+                            if (state[d] == 2 && finish[d] > best) {
+                                best = finish[d];
+                                pred[e] = d;
+                            }
+                        }
+                        finish[e] = best + edges.get(e).getDuration();
+                        state[e] = 2;
+                    }
+                }
+            }
+            int last = 0;
+            for (int i = 1; i < n; i++) {
+                if (finish[i] > finish[last])
+                    last = i;
+            }
+            final List<TimedPath> criticalPath = new ArrayList<TimedPath>();
+            for (int e = last; e != -1; e = pred[e]) {
+                final NinjaLog.Edge edge = edges.get(e);
+                criticalPath.add(new TimedPath(edge.path, edge.getDuration()));
+            }
+            Collections.reverse(criticalPath);
+
+            // sweep over start and end times
+            final Integer[] byStart = new Integer[n];
+            final Integer[] byEnd = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                byStart[i] = byEnd[i] = i;
+            }
+            Arrays.sort(byStart, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return edges.get(a).start - edges.get(b).start;
+                }
+            });
+            Arrays.sort(byEnd, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return edges.get(a).end - edges.get(b).end;
+                }
+            });
+            final int buckets = (int) (wallMillis / 1000 + 1);
+            final int bucketSeconds = (buckets + MAX_PROFILE_BUCKETS - 1)
+                    / MAX_PROFILE_BUCKETS;
+            final long bucketMillis = bucketSeconds * 1000L;
+            final long[] busy = new long[(int) (wallMillis / bucketMillis + 1)];
+            final long[] solo = new long[n];
+            final Set<Integer> running = new LinkedHashSet<Integer>();
+            int s = 0, e = 0;
+            long now = 0;
+            while (e < n) {
+                final boolean isStart = s < n
+                        && edges.get(byStart[s]).start <= edges.get(byEnd[e]).end;
+                final long t = isStart ? edges.get(byStart[s]).start : edges
+                        .get(byEnd[e]).end;
+                if (t > now) {
+                    addBusy(busy, bucketMillis, now, t, running.size());
+                    if (running.size() == 1) {
+                        solo[running.iterator().next()] += t - now;
+                    }
+                    now = t;
+                }
+                if (isStart) {
+                    running.add(byStart[s++]);
+                } else {
+                    running.remove(byEnd[e++]);
+                }
+            }
+            final float[] concurrency = new float[busy.length];
+            for (int i = 0; i < busy.length; i++) {
+                concurrency[i] = busy[i] / (float) bucketMillis;
+            }
+
+            final PriorityQueue<TimedPath> serializing = new PriorityQueue<TimedPath>(
+                    TOP_N + 1, new Comparator<TimedPath>() {
+                        public int compare(TimedPath a, TimedPath b) {
+                            return a.millis - b.millis;
+                        }
+                    });
+            for (int i = 0; i < n; i++) {
+                if (solo[i] > 0) {
+                    serializing.add(new TimedPath(edges.get(i).path,
+                            (int) solo[i]));
+                    if (serializing.size() > TOP_N)
+                        serializing.poll();
+                }
+            }
+            final List<TimedPath> top = new ArrayList<TimedPath>();
+            while (!serializing.isEmpty()) {
+                top.add(serializing.poll());
+            }
+            Collections.reverse(top);
+
+            return new Report(finish[last], criticalPath, top, bucketSeconds,
+                    concurrency);
+        }
+
+        /**
+         * Adds the busy time of the specified interval to the buckets.
+         */
+        private static void addBusy(long[] busy, long bucketMillis, long from,
+                long to, int running) {
+            while (from < to) {
+                final int bucket = (int) (from / bucketMillis);
+                final long bucketEnd = Math.min(to, (bucket + 1) * bucketMillis);
+                if (bucket < busy.length) {
+                    busy[bucket] += (bucketEnd - from) * running;
+                }
+                from = bucketEnd;
+            }
+        }
+
+        /**
+         * Collects the edges built that the specified output depends on,
+         * looking through outputs that were not built.
+         */
+        private static void collectDeps(String output,
+                Map<String, Integer> edgeByOutput,
+                Map<String, Set<String>> inputs, Set<Integer> deps, int self) {
+            final Set<String> visited = new HashSet<String>();
+            final Deque<String> todo = new ArrayDeque<String>();
+            todo.push(output);
+            while (!todo.isEmpty()) {
+                final Set<String> in = inputs.get(todo.pop());
+                if (in == null)
+                    continue;
+                for (String input : in) {
+                    if (!visited.add(input))
+                        continue;
+                    final Integer edge = edgeByOutput.get(input);
+                    if (edge != null) {
+                        if (edge != self)
+                            deps.add(edge);
+                    } else {
+                        todo.push(input);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes the edges as Chrome trace events, placing overlapping edges
+         * in separate lanes.
+         */
+        private void writeTrace(final List<NinjaLog.Edge> edges)
+                throws IOException {
+            final List<NinjaLog.Edge> sorted = new ArrayList<NinjaLog.Edge>(
+                    edges);
+            Collections.sort(sorted, new Comparator<NinjaLog.Edge>() {
+                public int compare(NinjaLog.Edge a, NinjaLog.Edge b) {
+                    return a.start - b.start;
+                }
+            });
+            // busy lanes ordered by end time, encoded as end << 20 | lane
+            final PriorityQueue<Long> busyLanes = new PriorityQueue<Long>();
+            final PriorityQueue<Integer> freeLanes = new PriorityQueue<Integer>();
+            int lanes = 0;
+            final GZIPOutputStream gzip = new GZIPOutputStream(trace);
+            final Writer out = new BufferedWriter(new OutputStreamWriter(gzip,
+                    "UTF-8"));
+            try {
+                out.write("{\"traceEvents\":[");
+                boolean first = true;
+                for (NinjaLog.Edge edge : sorted) {
+                    while (!busyLanes.isEmpty()
+                            && (busyLanes.peek() >> 20) <= edge.start) {
+                        freeLanes.add((int) (busyLanes.poll() & 0xfffff));
+                    }
+                    final int lane = freeLanes.isEmpty() ? lanes++ : freeLanes
+                            .poll();
+                    busyLanes.add(((long) edge.end << 20) | lane);
+                    if (!first)
+                        out.write(",\n");
+                    first = false;
+                    out.write("{\"name\":");
+                    out.write(JSONUtils.quote(edge.path));
+                    out.write(",\"cat\":\"targets\",\"ph\":\"X\",\"ts\":");
+                    out.write(Long.toString(edge.start * 1000L));
+                    out.write(",\"dur\":");
+                    out.write(Long.toString(edge.getDuration() * 1000L));
+                    out.write(",\"pid\":0,\"tid\":");
+                    out.write(Integer.toString(lane));
+                    out.write("}");
+                }
+                out.write("],\"displayTimeUnit\":\"ms\"}\n");
+            } finally {
+                // the trace stream itself is closed by the caller
+                out.flush();
+                gzip.finish();
+            }
+        }
+    } // Analyze
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Util;
+import hudson.model.Run;
+import hudson.util.Graph;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+import jenkins.model.RunAction2;
+
+import org.apache.commons.io.IOUtils;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * The critical path and core utilization analysis of a ninja build.
+ */
+public class NinjaAnalysisAction implements RunAction2 {
+    /** the name of the gzip compressed Chrome trace in the build directory */
+    static final String TRACE_FILE = "ninja-trace.json.gz";
+
+    private transient Run<?, ?> run;
+
+    private final long criticalPathMillis;
+    private final List<NinjaAnalysis.TimedPath> criticalPath;
+    private final List<NinjaAnalysis.TimedPath> serializing;
+    private final int bucketSeconds;
+    private final float[] concurrency;
+    /** the number of CPUs of the build node */
+    private final int cpus;
+
+    NinjaAnalysisAction(NinjaAnalysis.Report report, int cpus) {
+        this.criticalPathMillis = report.criticalPathMillis;
+        this.criticalPath = report.criticalPath;
+        this.serializing = report.serializing;
+        this.bucketSeconds = report.bucketSeconds;
+        this.concurrency = report.concurrency;
+        this.cpus = cpus;
+    }
+
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    public String getDisplayName() {
+        return "Ninja Critical Path";
+    }
+
+    public String getUrlName() {
+        return "ninja-analysis";
+    }
+
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    public String getCriticalPathTimeString() {
+        return Util.getTimeSpanString(criticalPathMillis);
+    }
+
+    /**
+     * Gets the edges on the critical path, in build order.
+     */
+    public List<NinjaAnalysis.TimedPath> getCriticalPath() {
+        return criticalPath == null ? Collections
+                .<NinjaAnalysis.TimedPath> emptyList() : criticalPath;
+    }
+
+    /**
+     * Gets the edges that ran alone the longest, longest first.
+     */
+    public List<NinjaAnalysis.TimedPath> getSerializing() {
+        return serializing == null ? Collections
+                .<NinjaAnalysis.TimedPath> emptyList() : serializing;
+    }
+
+    public int getCpus() {
+        return cpus;
+    }
+
+    /**
+     * Gets the average CPU utilization over the build in percent, assuming one
+     * CPU per running edge.
+     */
+    public int getUtilization() {
+        if (concurrency == null || concurrency.length == 0 || cpus <= 0)
+            return 0;
+        double sum = 0;
+        for (float c : concurrency) {
+            sum += c;
+        }
+        return (int) Math.round(100 * sum / concurrency.length / cpus);
+    }
+
+    /**
+     * Renders the concurrency profile.
+     */
+    public void doProfile(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
+        new Graph(run.getTimestamp(), 600, 250) {
+            @Override
+            protected JFreeChart createGraph() {
+                final XYSeries running = new XYSeries("running edges");
+                final XYSeries available = new XYSeries("CPUs");
+                for (int i = 0; concurrency != null && i < concurrency.length; i++) {
+                    running.add(i * bucketSeconds, concurrency[i]);
+                    available.add(i * bucketSeconds, cpus);
+                }
+                final XYSeriesCollection dataset = new XYSeriesCollection();
+                dataset.addSeries(running);
+                dataset.addSeries(available);
+                final JFreeChart chart = ChartFactory.createXYLineChart(null,
+                        "seconds", null, dataset, PlotOrientation.VERTICAL,
+                        true, true, false);
+                chart.setBackgroundPaint(Color.white);
+                return chart;
+            }
+        }.doPng(req, rsp);
+    }
+
+    /**
+     * Downloads the gzip compressed Chrome trace of the build.
+     */
+    public void doTrace(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
+        final File trace = new File(run.getRootDir(), TRACE_FILE);
+        if (!trace.isFile()) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        rsp.setContentType("application/gzip");
+        rsp.setHeader("Content-Disposition", "attachment; filename="
+                + TRACE_FILE);
+        final InputStream in = new FileInputStream(trace);
+        try {
+            IOUtils.copy(in, rsp.getOutputStream());
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -8,21 +8,40 @@ package org.jenkinsci.plugins.ninja;
 
 import hudson.EnvVars;
 import hudson.Extension;
+import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.Run.RunnerAbortedException;
+import hudson.remoting.VirtualChannel;
 import hudson.tasks.BuildWrapper;
 import hudson.tasks.BuildWrapperDescriptor;
 import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
 import hudson.util.ListBoxModel;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import jenkins.model.Jenkins;
 
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 /**
  * A Build wrapper that download the ninja build system on demand and adds the
@@ -31,19 +50,192 @@ import org.kohsuke.stapler.DataBoundConstructor;
  * @author Martin Weber
  */
 public class NinjaBuildWrapper extends BuildWrapper {
+  /** the minimum time between two ninja status lines in the console log */
+  private static final long PROGRESS_INTERVAL_MILLIS = Long.getLong(
+      NinjaBuildWrapper.class.getName() + ".progressIntervalMillis", 10000);
 
   /** the name of the nija tool installation to use for this job */
   private String installationName;
+  /** the maximum number of parallel ninja jobs, 0 for no limit */
+  private int maxJobs;
+  /** whether to share a node-wide jobserver with concurrent builds */
+  private boolean useJobServer;
+  /**
+   * the ninja build directory, relative to the workspace, or {@code null} for
+   * the workspace
+   */
+  private String buildDir;
+  /** whether to record the edge timings from the ninja log */
+  private boolean recordTimings;
+  /** whether to analyze the critical path and the CPU utilization */
+  private boolean analyzeBuild;
+  /** whether to find out why ninja rebuilds targets */
+  private boolean explainRebuilds;
+  /** whether to save the ninja state for builds in a fresh workspace */
+  private boolean persistState;
+  /**
+   * an Ant glob of further files to save with the ninja state, relative to
+   * the build directory, or {@code null}
+   */
+  private String stateIncludes;
+  /** whether to compile through the shared compiler output cache */
+  private boolean cacheOutputs;
+  /** whether to collapse ninja´s status lines in the console log */
+  private boolean collapseProgress;
 
   @DataBoundConstructor
   public NinjaBuildWrapper(String installationName) {
     this.installationName = installationName;
   }
 
+  /**
+   * Gets the maximum number of parallel ninja jobs for this job.
+   *
+   * @return the number of jobs or {@code 0} for no limit
+   */
+  public int getMaxJobs() {
+    return maxJobs;
+  }
+
+  @DataBoundSetter
+  public void setMaxJobs(int maxJobs) {
+    this.maxJobs = maxJobs;
+  }
+
+  /**
+   * Gets whether concurrent ninja builds on the build node share a node-wide
+   * jobserver.
+   */
+  public boolean isUseJobServer() {
+    return useJobServer;
+  }
+
+  @DataBoundSetter
+  public void setUseJobServer(boolean useJobServer) {
+    this.useJobServer = useJobServer;
+  }
+
+  /**
+   * Gets the ninja build directory.
+   *
+   * @return the directory relative to the workspace or {@code null} for the
+   *         workspace
+   */
+  public String getBuildDir() {
+    return buildDir;
+  }
+
+  @DataBoundSetter
+  public void setBuildDir(String buildDir) {
+    this.buildDir = Util.fixEmptyAndTrim(buildDir);
+  }
+
+  /**
+   * Gets whether the edge timings from the ninja log are recorded for each
+   * build.
+   */
+  public boolean isRecordTimings() {
+    return recordTimings;
+  }
+
+  @DataBoundSetter
+  public void setRecordTimings(boolean recordTimings) {
+    this.recordTimings = recordTimings;
+  }
+
+  /**
+   * Gets whether the critical path and the CPU utilization of each build are
+   * analyzed.
+   */
+  public boolean isAnalyzeBuild() {
+    return analyzeBuild;
+  }
+
+  @DataBoundSetter
+  public void setAnalyzeBuild(boolean analyzeBuild) {
+    this.analyzeBuild = analyzeBuild;
+  }
+
+  /**
+   * Gets whether the reasons ninja gives for rebuilding targets are reported
+   * for each build.
+   */
+  public boolean isExplainRebuilds() {
+    return explainRebuilds;
+  }
+
+  @DataBoundSetter
+  public void setExplainRebuilds(boolean explainRebuilds) {
+    this.explainRebuilds = explainRebuilds;
+  }
+
+  /**
+   * Gets whether the ninja state is saved after each build and restored into
+   * fresh build directories.
+   */
+  public boolean isPersistState() {
+    return persistState;
+  }
+
+  @DataBoundSetter
+  public void setPersistState(boolean persistState) {
+    this.persistState = persistState;
+  }
+
+  /**
+   * Gets the files to save along with the ninja state.
+   *
+   * @return an Ant glob relative to the build directory or {@code null}
+   */
+  public String getStateIncludes() {
+    return stateIncludes;
+  }
+
+  @DataBoundSetter
+  public void setStateIncludes(String stateIncludes) {
+    this.stateIncludes = Util.fixEmptyAndTrim(stateIncludes);
+  }
+
+  /**
+   * Gets whether compilations run through ccache to share their outputs
+   * between builds and nodes.
+   */
+  public boolean isCacheOutputs() {
+    return cacheOutputs;
+  }
+
+  @DataBoundSetter
+  public void setCacheOutputs(boolean cacheOutputs) {
+    this.cacheOutputs = cacheOutputs;
+  }
+
+  /**
+   * Gets whether ninja´s status lines are collapsed in the console log.
+   */
+  public boolean isCollapseProgress() {
+    return collapseProgress;
+  }
+
+  @DataBoundSetter
+  public void setCollapseProgress(boolean collapseProgress) {
+    this.collapseProgress = collapseProgress;
+  }
+
+  @Override
+  public OutputStream decorateLogger(
+      @SuppressWarnings("rawtypes") AbstractBuild build, OutputStream logger)
+      throws IOException, InterruptedException, RunnerAbortedException {
+    if (!collapseProgress)
+      return logger;
+    return new NinjaProgressFilter(logger, PROGRESS_INTERVAL_MILLIS,
+        build.getCharset());
+  }
+
   @Override
   public BuildWrapper.Environment setUp(
       @SuppressWarnings("rawtypes") AbstractBuild build, Launcher launcher,
       BuildListener listener) throws IOException, InterruptedException {
+    final long start = System.currentTimeMillis();
     NinjaTool installation = getSelectedInstallation();
     // Raise an error if the ninja installation isn't found
     if (installation == null) {
@@ -55,26 +247,418 @@ public class NinjaBuildWrapper extends BuildWrapper {
 //??    env.overrideAll(build.getBuildVariables());
 
     // Get the ninja version for this node, installing it if necessary
+    final NinjaTool selected = installation;
     installation = (NinjaTool) installation.translate(build, listener);
 
+    // keep the installation from being evicted while building
+    final Node node = build.getBuiltOn();
+    final FilePath toolDir = getToolDir(node, installation);
+    final boolean intact = toolDir == null
+        || InstallUsage.acquire(node, toolDir);
+
+    boolean ready = false;
+    try {
+      if (!intact) {
+        // resolution was cached, have the installer repair it. Being in use,
+        // it will not be evicted again
+        listener.getLogger().println(
+            "The ninja installation " + toolDir
+                + " is missing or damaged, re-installing");
+        ToolResolutionCache.invalidate(node.getNodeName());
+        installation = (NinjaTool) selected.translate(build, listener);
+      }
+      final long resolveMillis = System.currentTimeMillis() - start;
+      final Environment environment = setUp(build, installation, node,
+          toolDir, start, resolveMillis, listener);
+      ready = true;
+      return environment;
+    } finally {
+      if (!ready && toolDir != null) {
+        InstallUsage.release(node, toolDir);
+      }
+    }
+  }
+
+  /**
+   * Sets up the build once the ninja installation is resolved and marked as
+   * used.
+   *
+   * @param toolDir
+   *          the directory of the automatically installed tool, released
+   *          when the build is torn down, or {@code null}
+   */
+  private Environment setUp(AbstractBuild<?, ?> build,
+      NinjaTool installation, final Node node, final FilePath toolDir,
+      long start, long resolveMillis, BuildListener listener)
+      throws IOException, InterruptedException {
+    final EnvVars envVars = new EnvVars();
     // add ninja to PATH for sub-processes, if autoinstalled
     if (installation.getProperties().get(InstallSourceProperty.class) != null) {
-      final NinjaTool install = installation;
-      return new Environment() {
-        @Override
-        public void buildEnvVars(Map<String, String> env) {
-            EnvVars envVars = new EnvVars();
-            install.buildEnvVars(envVars);
-            env.putAll(envVars);
+      installation.buildEnvVars(envVars);
+    }
+
+    // recommend parallelism for this node
+    final NodePlatform platform = node == null ? null : NodePlatformCache
+        .get(node);
+    String jobServer = null;
+    int jobs = 0;
+    if (node != null) {
+      final NinjaParallelism parallelism = NinjaParallelism.compute(
+          platform, node.getNumExecutors(), maxJobs,
+          node.getNodeProperties().get(NinjaNodeProperty.class));
+      final FilePath root = node.getRootPath();
+      if (useJobServer && root != null) {
+        // the pool is shared by all builds on the node
+        jobServer = root.act(new NodeJobServer.Attach(
+            build.getExternalizableId(), parallelism.load,
+            getRunningBuilds(node)));
+        if (jobServer == null) {
+          listener.getLogger().println(
+              "Node-wide jobserver is not supported on this node");
+        } else {
+          jobs = parallelism.load;
+          listener.getLogger().println(
+              "Using node-wide jobserver " + jobServer + " with "
+                  + parallelism.load + " jobs");
         }
-      };
-    } else {
-      return new Environment() {
-        @Override
-        public void buildEnvVars(Map<String, String> env) {
+      }
+      envVars.putAll(parallelism.toEnvVars(jobServer != null));
+      listener.getLogger().println(
+          "Recommended ninja parallelism: -j " + parallelism.jobs + " -l "
+              + parallelism.load + " (see $" + NinjaParallelism.ENV_ARGS + ")");
+    }
+
+    final FilePath ninjaLog = getBuildDirPath(build) == null ? null
+        : getBuildDirPath(build).child(NinjaLog.FILE_NAME);
+    final String stateKey = persistState && ninjaLog != null ? getStateKey(
+        build, installation, platform, listener) : null;
+    if (stateKey != null && !ninjaLog.exists()) {
+      restoreState(ninjaLog.getParent(), stateKey, listener);
+    }
+
+    // remember where this build´s entries in the ninja log will start
+    final NinjaLog.Position ninjaLogStart = (recordTimings || analyzeBuild)
+        && ninjaLog != null ? ninjaLog.act(new NinjaLog.Mark()) : null;
+    final String ninjaExe = installation.getHome() != null ? installation
+        .getHome() : "ninja";
+    final FilePath statsLog = cacheOutputs && ninjaLog != null ? ninjaLog
+        .getParent().child(OutputCache.STATS_LOG) : null;
+    if (statsLog != null) {
+      statsLog.delete();
+      OutputCache.buildEnvVars(envVars, build.getWorkspace().getRemote(),
+          statsLog.getRemote());
+      if (OutputCache.isConfiguredWithoutLauncher(ninjaLog.getParent())) {
+        listener.getLogger().println(
+            "WARNING: " + ninjaLog.getParent().child("CMakeCache.txt")
+                + " exists without ccache as compiler launcher;"
+                + " compilations will not be cached until the build directory"
+                + " is configured from scratch (requires CMake 3.17 or later)");
+      }
+    }
+    if (collapseProgress) {
+      final String status = build.getEnvironment(listener).get("NINJA_STATUS");
+      if (status == null) {
+        // make the status lines recognizable
+        envVars.put("NINJA_STATUS", NinjaProgressFilter.NINJA_STATUS);
+      } else {
+        listener.getLogger().println(
+            "Keeping NINJA_STATUS=\"" + status + "\"; only status lines"
+                + " starting with [n/m] are collapsed");
+      }
+    }
+    if (explainRebuilds && ninjaLog != null) {
+      explain(build, ninjaLog.getParent(), ninjaExe, listener);
+    }
+
+    final String jobServerPath = jobServer;
+    final int jobServerJobs = jobs;
+    final long setUpMillis = System.currentTimeMillis() - start;
+    if (node != null) {
+      NinjaMetrics.recordSetUp(node.getNodeName(), setUpMillis);
+    }
+    listener.getLogger().println(
+        "Ninja set up in " + setUpMillis + " ms (tool resolution "
+            + resolveMillis + " ms)");
+
+    return new Environment() {
+      @Override
+      public void buildEnvVars(Map<String, String> env) {
+        env.putAll(envVars);
+        if (jobServerPath != null) {
+          env.put(NodeJobServer.ENV_MAKEFLAGS, NodeJobServer.makeFlags(
+              env.get(NodeJobServer.ENV_MAKEFLAGS), jobServerPath,
+              jobServerJobs));
+        }
+      }
+
+      @Override
+      public boolean tearDown(@SuppressWarnings("rawtypes") AbstractBuild build,
+          BuildListener listener) throws IOException, InterruptedException {
+        if (toolDir != null) {
+          InstallUsage.release(node, toolDir);
+        }
+        if (jobServerPath != null) {
+          final FilePath root = node.getRootPath();
+          if (root != null) {
+            root.act(new NodeJobServer.Detach(build.getExternalizableId()));
+          }
+        }
+        if (recordTimings && ninjaLog != null) {
+          ingestTimings(build, ninjaLog, ninjaLogStart, listener);
+        }
+        if (analyzeBuild && ninjaLog != null) {
+          analyze(build, ninjaLog.getParent(), ninjaLogStart, ninjaExe,
+              platform == null ? 0 : platform.getCpuCount(), listener);
+        }
+        if (statsLog != null) {
+          reportOutputCache(build, statsLog, listener);
         }
-      };
+        if (stateKey != null) {
+          saveState(ninjaLog.getParent(), stateKey, stateIncludes, listener);
+        }
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Gets the IDs of the builds running on the specified node.
+   */
+  private static Set<String> getRunningBuilds(Node node) {
+    final Set<String> running = new HashSet<String>();
+    final Computer computer = node.toComputer();
+    if (computer != null) {
+      for (Executor executor : computer.getExecutors()) {
+        final Queue.Executable executable = executor.getCurrentExecutable();
+        if (executable instanceof Run) {
+          running.add(((Run<?, ?>) executable).getExternalizableId());
+        }
+      }
+    }
+    return running;
+  }
+
+  /**
+   * Gets the directory of a tool installed by the {@link NinjaInstaller} on
+   * the specified node. Whether the tool was installed by it is decided by
+   * the installers configured for the tool.
+   *
+   * @return the directory or {@code null} if the tool is not installed by
+   *         the {@code NinjaInstaller}
+   */
+  private static FilePath getToolDir(Node node, NinjaTool installation) {
+    if (node == null || installation.getHome() == null)
+      return null;
+    final VirtualChannel channel = node.getChannel();
+    if (channel == null)
+      return null; // node went offline
+    final InstallSourceProperty installers = installation.getProperties()
+        .get(InstallSourceProperty.class);
+    if (installers == null)
+      return null;
+    // the tool is installed by the first installer that applies
+    for (ToolInstaller installer : installers.installers) {
+      if (installer.appliesTo(node)) {
+        if (!(installer instanceof NinjaInstaller))
+          return null;
+        return new FilePath(channel, installation.getHome()).getParent();
+      }
     }
+    return null;
+  }
+
+  /**
+   * Gets the ninja build directory of the specified build.
+   *
+   * @return the directory or {@code null} if the build has no workspace
+   */
+  private FilePath getBuildDirPath(AbstractBuild<?, ?> build) {
+    final FilePath workspace = build.getWorkspace();
+    if (workspace == null)
+      return null;
+    return buildDir == null ? workspace : workspace.child(buildDir);
+  }
+
+  /**
+   * Computes the key the ninja state of the specified build is saved under.
+   * The state is specific to the job, the branch and the toolchain.
+   */
+  private static String getStateKey(AbstractBuild<?, ?> build,
+      NinjaTool installation, NodePlatform platform, BuildListener listener)
+      throws IOException, InterruptedException {
+    final EnvVars env = build.getEnvironment(listener);
+    String branch = env.get("BRANCH_NAME");
+    if (branch == null) {
+      branch = env.get("GIT_BRANCH");
+    }
+    return NinjaStateCache.key(build.getProject().getFullName(), branch,
+        installation.getName(), installation.getHome(),
+        platform == null ? null : platform.getOsName(),
+        platform == null ? null : platform.getOsArch());
+  }
+
+  /**
+   * Restores the saved ninja state into a fresh build directory.
+   */
+  private static void restoreState(FilePath buildDir, String key,
+      BuildListener listener) throws IOException, InterruptedException {
+    try {
+      if (NinjaStateCache.get().restore(buildDir, key)) {
+        listener.getLogger().println("Restored saved ninja state");
+      }
+    } catch (IOException ex) {
+      // a full build is slow, but not wrong
+      ex.printStackTrace(listener.error("Failed to restore ninja state"));
+    }
+  }
+
+  /**
+   * Saves the ninja state for builds in a fresh build directory.
+   */
+  private static void saveState(FilePath buildDir, String key,
+      String includes, BuildListener listener) throws IOException, InterruptedException {
+    if (!buildDir.child(NinjaLog.FILE_NAME).exists()) {
+      // nothing was built
+      return;
+    }
+    try {
+      final int files = NinjaStateCache.get().save(buildDir, key, includes);
+      listener.getLogger().println("Saved ninja state (" + files + " files)");
+    } catch (IOException ex) {
+      ex.printStackTrace(listener.error("Failed to save ninja state"));
+    }
+  }
+
+  /**
+   * Reads the compiler output cache statistics of this build and attaches
+   * them to the build.
+   */
+  private static void reportOutputCache(AbstractBuild<?, ?> build,
+      FilePath statsLog, BuildListener listener) throws IOException,
+      InterruptedException {
+    final OutputCache.Stats stats;
+    try {
+      stats = statsLog.act(new OutputCache.ReadStats());
+    } catch (IOException ex) {
+      ex.printStackTrace(listener
+          .error("Failed to read the ninja output cache statistics"));
+      return;
+    }
+    if (stats.getHits() + stats.misses == 0)
+      return;
+    build.addAction(new NinjaOutputCacheAction(stats));
+    listener.getLogger().println(
+        "Ninja output cache: " + stats.getHits() + " hits ("
+            + stats.remoteHits + " remote), " + stats.misses + " misses");
+  }
+
+  /**
+   * Reads the entries this build appended to the ninja log and attaches them
+   * to the build.
+   */
+  private static void ingestTimings(AbstractBuild<?, ?> build,
+      FilePath ninjaLog, NinjaLog.Position from, BuildListener listener)
+      throws IOException, InterruptedException {
+    final File timings = new File(build.getRootDir(),
+        NinjaTimingAction.TIMINGS_FILE);
+    final OutputStream out = new FileOutputStream(timings);
+    final NinjaLog.Summary summary;
+    try {
+      summary = ninjaLog.act(new NinjaLog.Ingest(from, out));
+    } catch (NinjaLog.RewrittenException ex) {
+      listener.getLogger().println(
+          "Ninja timings unavailable: " + ex.getMessage());
+      out.close();
+      timings.delete();
+      return;
+    } catch (IOException ex) {
+      ex.printStackTrace(listener.error("Failed to record the ninja timings"));
+      out.close();
+      timings.delete();
+      return;
+    } finally {
+      out.close();
+    }
+    if (summary.edges == 0) {
+      timings.delete();
+      return;
+    }
+    build.addAction(new NinjaTimingAction(summary));
+    listener.getLogger().println(
+        "Recorded ninja timings of " + summary.edges + " edges, wall time "
+            + Util.getTimeSpanString(summary.wallMillis));
+  }
+
+  /**
+   * Asks ninja why it would rebuild targets and attaches the grouped reasons
+   * to the build.
+   */
+  private static void explain(AbstractBuild<?, ?> build, FilePath buildDir,
+      String ninjaExe, BuildListener listener) throws IOException,
+      InterruptedException {
+    if (!buildDir.child("build.ninja").exists()) {
+      // generated during the build, nothing to explain
+      return;
+    }
+    final NinjaExplain.Report report;
+    try {
+      report = buildDir.act(new NinjaExplain.Explain(ninjaExe));
+    } catch (IOException ex) {
+      ex.printStackTrace(listener.error("Failed to explain ninja rebuilds"));
+      return;
+    }
+    build.addAction(new NinjaExplainAction(report));
+    listener.getLogger().println(
+        "Ninja is about to run " + report.edges
+            + " edges, see 'Ninja Rebuild Causes' for the reasons");
+  }
+
+  /**
+   * Analyzes the critical path and the CPU utilization of the edges this build
+   * appended to the ninja log and attaches the result to the build.
+   */
+  private static void analyze(AbstractBuild<?, ?> build, FilePath buildDir,
+      NinjaLog.Position from, String ninjaExe, int cpus,
+      BuildListener listener)
+      throws IOException, InterruptedException {
+    final File trace = new File(build.getRootDir(),
+        NinjaAnalysisAction.TRACE_FILE);
+    final OutputStream out = new FileOutputStream(trace);
+    final NinjaAnalysis.Report report;
+    try {
+      report = buildDir.act(new NinjaAnalysis.Analyze(from, ninjaExe, out));
+    } catch (NinjaLog.RewrittenException ex) {
+      listener.getLogger().println(
+          "Ninja build analysis unavailable: " + ex.getMessage());
+      out.close();
+      trace.delete();
+      return;
+    } catch (IOException ex) {
+      ex.printStackTrace(listener.error("Failed to analyze the ninja build"));
+      out.close();
+      trace.delete();
+      return;
+    } finally {
+      out.close();
+    }
+    if (report.criticalPath.isEmpty()) {
+      trace.delete();
+      return;
+    }
+    build.addAction(new NinjaAnalysisAction(report, cpus));
+    listener.getLogger().println(
+        "Ninja critical path: "
+            + Util.getTimeSpanString(report.criticalPathMillis) + " over "
+            + report.criticalPath.size() + " edges");
+  }
+
+  @Override
+  public Collection<? extends Action> getProjectActions(
+      @SuppressWarnings("rawtypes") AbstractProject job) {
+    if (recordTimings) {
+      return Collections.singletonList(new NinjaTimingProjectAction(job));
+    }
+    return Collections.emptyList();
   }
 
   /**
@@ -86,11 +670,22 @@ public class NinjaBuildWrapper extends BuildWrapper {
   private NinjaTool getSelectedInstallation() {
     NinjaTool.DescriptorImpl descriptor = (NinjaTool.DescriptorImpl) Jenkins
         .getInstance().getDescriptor(NinjaTool.class);
-    for (NinjaTool i : descriptor.getInstallations()) {
-      if (installationName != null && i.getName().equals(installationName))
+    return selectInstallation(descriptor.getInstallations(), installationName);
+  }
+
+  /**
+   * Finds the Ninja tool installation with the specified name.
+   *
+   * @return the installation or {@code null} if none could be found
+   */
+  static NinjaTool selectInstallation(NinjaTool[] installations,
+      String installationName) {
+    if (installationName == null)
+      return null;
+    for (NinjaTool i : installations) {
+      if (installationName.equals(i.getName()))
         return i;
     }
-
     return null;
   }
 
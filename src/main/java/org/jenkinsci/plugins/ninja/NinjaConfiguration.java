@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Extension;
+import hudson.Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jenkins.model.GlobalConfiguration;
+import net.sf.json.JSONObject;
+
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * Global, fleet-wide settings of the ninja plugin.
+ */
+@Extension
+public class NinjaConfiguration extends GlobalConfiguration {
+
+    /**
+     * whether the controller downloads each archive once and streams it to the
+     * build nodes
+     */
+    private boolean cacheOnController;
+    /**
+     * the directory of the content-addressed store on the nodes or
+     * {@code null}
+     */
+    private String nodeStoreDir;
+    /** whether to install the tools in the background */
+    private boolean warmUp;
+    /** the maximum number of concurrent background installations */
+    private int warmUpConcurrency = 4;
+    /**
+     * the directory shared by the nodes to keep the ninja state in or
+     * {@code null} to keep it on the controller
+     */
+    private String stateCacheDir;
+    /** the maximum size of the ninja state cache in MiB */
+    private int stateCacheMaxMB = 1024;
+    /** the ccache directory on the nodes or {@code null} */
+    private String outputCacheDir;
+    /** the ccache remote storage URL or {@code null} */
+    private String outputCacheUrl;
+    /** the base URLs of the mirrors of the download site, one per line */
+    private String mirrors;
+    /**
+     * the disk space ninja installations may take on each node in MiB, 0 for
+     * no limit
+     */
+    private int installQuotaMB;
+
+    public NinjaConfiguration() {
+        load();
+    }
+
+    /**
+     * Gets the singleton instance.
+     *
+     * @return the instance or {@code null} if Jenkins is not running
+     */
+    public static NinjaConfiguration get() {
+        return GlobalConfiguration.all().get(NinjaConfiguration.class);
+    }
+
+    /**
+     * Gets whether ninja archives are downloaded by the controller into its
+     * cache and sent to the build nodes through the remoting channel.
+     */
+    public boolean isCacheOnController() {
+        return cacheOnController;
+    }
+
+    public void setCacheOnController(boolean cacheOnController) {
+        this.cacheOnController = cacheOnController;
+    }
+
+    /**
+     * Gets the directory of the content-addressed store of unpacked archives
+     * on the nodes. Relative paths are resolved against the root directory of
+     * each node.
+     *
+     * @return the directory or {@code null} if no store is used
+     */
+    public String getNodeStoreDir() {
+        return nodeStoreDir;
+    }
+
+    public void setNodeStoreDir(String nodeStoreDir) {
+        this.nodeStoreDir = Util.fixEmptyAndTrim(nodeStoreDir);
+    }
+
+    /**
+     * Gets whether the ninja tools are installed in the background when a node
+     * comes online and when a new download is published.
+     */
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    /**
+     * Gets the maximum number of concurrent background installations.
+     */
+    public int getWarmUpConcurrency() {
+        return warmUpConcurrency;
+    }
+
+    public void setWarmUpConcurrency(int warmUpConcurrency) {
+        this.warmUpConcurrency = warmUpConcurrency;
+    }
+
+    /**
+     * Gets the directory to keep the saved ninja state in. This is a path on
+     * the build nodes, usually a network file system mounted on all nodes.
+     *
+     * @return the directory or {@code null} to keep the ninja state on the
+     *         controller
+     */
+    public String getStateCacheDir() {
+        return stateCacheDir;
+    }
+
+    public void setStateCacheDir(String stateCacheDir) {
+        this.stateCacheDir = Util.fixEmptyAndTrim(stateCacheDir);
+    }
+
+    /**
+     * Gets the maximum size of the saved ninja state, in MiB.
+     */
+    public int getStateCacheMaxMB() {
+        return stateCacheMaxMB;
+    }
+
+    public void setStateCacheMaxMB(int stateCacheMaxMB) {
+        this.stateCacheMaxMB = stateCacheMaxMB;
+    }
+
+    /**
+     * Gets the directory shared by the nodes to cache compiler outputs in.
+     *
+     * @return the directory or {@code null} to use ccache´s default
+     */
+    public String getOutputCacheDir() {
+        return outputCacheDir;
+    }
+
+    public void setOutputCacheDir(String outputCacheDir) {
+        this.outputCacheDir = Util.fixEmptyAndTrim(outputCacheDir);
+    }
+
+    /**
+     * Gets the URL of the remote storage to cache compiler outputs in.
+     *
+     * @return the URL or {@code null} for no remote storage
+     */
+    public String getOutputCacheUrl() {
+        return outputCacheUrl;
+    }
+
+    public void setOutputCacheUrl(String outputCacheUrl) {
+        this.outputCacheUrl = Util.fixEmptyAndTrim(outputCacheUrl);
+    }
+
+    /**
+     * Gets the base URLs of the mirrors of the download site, one per line.
+     */
+    public String getMirrors() {
+        return mirrors;
+    }
+
+    public void setMirrors(String mirrors) {
+        this.mirrors = Util.fixEmptyAndTrim(mirrors);
+    }
+
+    /**
+     * Gets the base URLs of the mirrors of the download site in the
+     * configured order, without trailing slashes.
+     *
+     * @return never {@code null}
+     */
+    List<String> getMirrorList() {
+        if (mirrors == null)
+            return Collections.emptyList();
+        final List<String> list = new ArrayList<String>();
+        for (String line : mirrors.split("\\s+")) {
+            while (line.endsWith("/")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (line.length() > 0) {
+                list.add(line);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Gets the disk space ninja installations may take on nodes that do not
+     * specify their own quota.
+     *
+     * @return the quota in MiB or {@code 0} for no limit
+     */
+    public int getInstallQuotaMB() {
+        return installQuotaMB;
+    }
+
+    public void setInstallQuotaMB(int installQuotaMB) {
+        this.installQuotaMB = installQuotaMB;
+    }
+
+    @Override
+    public boolean configure(StaplerRequest req, JSONObject json)
+            throws FormException {
+        req.bindJSON(this, json);
+        save();
+        return true;
+    }
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.remoting.VirtualChannel;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Finds out why ninja would rebuild targets by running
+ * {@code ninja -n -d explain} before the build and grouping the reasons.
+ */
+public final class NinjaExplain {
+    /** the number of top offenders to report */
+    private static final int TOP_N = 10;
+
+    private NinjaExplain() {
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * The reasons ninja gives for rebuilding a target.
+     */
+    static enum Reason {
+        MTIME_NEWER("Input newer than output",
+                "^(?:output|recorded mtime of|restat of output) (.+) older than most recent input (.+) \\("),
+        COMMAND_CHANGED("Command line changed",
+                "^command line changed for (.+)$"),
+        MISSING_OUTPUT("Output missing", "^output (.+) doesn't exist$"),
+        MISSING_DEPS("Dependency information missing",
+                "^deps for '?(.+?)'? are missing$"),
+        DIRTY_INPUT("Input is dirty", "^(.+) is dirty$"),
+        OTHER("Other", "^(.+)$");
+
+        private final String displayName;
+        final Pattern pattern;
+
+        private Reason(String displayName, String regex) {
+            this.displayName = displayName;
+            this.pattern = Pattern.compile(regex);
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    } // Reason
+
+    /**
+     * A name and how often it was seen. Public, since the build page renders
+     * its properties.
+     */
+    public static final class Count implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String name;
+        final int count;
+
+        Count(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    } // Count
+
+    /**
+     * The grouped reasons for rebuilding.
+     */
+    static final class Report implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** the number of edges ninja would run */
+        final int edges;
+        final Map<Reason, Integer> reasons;
+        /** the inputs that most often were newer than outputs */
+        final List<Count> inputs;
+        /** the rules whose outputs most often were rebuilt */
+        final List<Count> rules;
+
+        Report(int edges, Map<Reason, Integer> reasons, List<Count> inputs,
+                List<Count> rules) {
+            this.edges = edges;
+            this.reasons = reasons;
+            this.inputs = inputs;
+            this.rules = rules;
+        }
+    } // Report
+
+    /**
+     * Runs {@code ninja -n -d explain} and {@code ninja -t targets all} on the
+     * node. Must be invoked on the ninja build directory.
+     */
+    static class Explain extends MasterToSlaveFileCallable<Report> {
+        private static final long serialVersionUID = 1L;
+
+        private static final String PREFIX = "ninja explain: ";
+        private static final Pattern PROGRESS = Pattern
+                .compile("^\\[\\d+/(\\d+)\\] ");
+
+        /** the ninja executable */
+        private final String ninja;
+
+        /**
+         * @param ninja
+         *            the path of the ninja executable on the node
+         */
+        Explain(String ninja) {
+            this.ninja = ninja;
+        }
+
+        public Report invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final Map<Reason, Integer> reasons = new EnumMap<Reason, Integer>(
+                    Reason.class);
+            final Map<String, Integer> inputs = new HashMap<String, Integer>();
+            // the out-of-date outputs, without those that are rebuilt only
+            // because an input is dirty
+            final Map<String, Integer> outputs = new HashMap<String, Integer>();
+            int edges = 0;
+
+            ToolProcess tool = run(buildDir, "-n", "-d", "explain");
+            try {
+                final BufferedReader reader = tool.getOutput();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.startsWith(PREFIX)) {
+                        final Matcher m = PROGRESS.matcher(line);
+                        if (m.find()) {
+                            edges = Integer.parseInt(m.group(1));
+                        }
+                        continue;
+                    }
+                    final String explanation = line.substring(PREFIX.length());
+                    for (Reason reason : Reason.values()) {
+                        final Matcher m = reason.pattern.matcher(explanation);
+                        if (!m.find())
+                            continue;
+                        increment(reasons, reason);
+                        switch (reason) {
+                        case MTIME_NEWER:
+                            increment(inputs, m.group(2));
+                            increment(outputs, m.group(1));
+                            break;
+                        case COMMAND_CHANGED:
+                        case MISSING_OUTPUT:
+                        case MISSING_DEPS:
+                            increment(outputs, m.group(1));
+                            break;
+                        default:
+                            break;
+                        }
+                        break;
+                    }
+                }
+                tool.waitFor();
+            } finally {
+                tool.close();
+            }
+
+            // map outputs to the rules that build them
+            final Map<String, Integer> rules = new HashMap<String, Integer>();
+            if (!outputs.isEmpty()) {
+                tool = run(buildDir, "-t", "targets", "all");
+                try {
+                    final BufferedReader reader = tool.getOutput();
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        final int idx = line.lastIndexOf(": ");
+                        if (idx <= 0)
+                            continue;
+                        final Integer count = outputs.get(line
+                                .substring(0, idx));
+                        if (count != null) {
+                            final String rule = line.substring(idx + 2);
+                            final Integer sum = rules.get(rule);
+                            rules.put(rule, sum == null ? count : sum + count);
+                        }
+                    }
+                    tool.waitFor();
+                } finally {
+                    tool.close();
+                }
+            }
+            return new Report(edges, reasons, top(inputs), top(rules));
+        }
+
+        private static <K> void increment(Map<K, Integer> counts, K key) {
+            final Integer count = counts.get(key);
+            counts.put(key, count == null ? 1 : count + 1);
+        }
+
+        private static List<Count> top(Map<String, Integer> counts) {
+            final List<Count> all = new ArrayList<Count>(counts.size());
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                all.add(new Count(e.getKey(), e.getValue()));
+            }
+            Collections.sort(all, new Comparator<Count>() {
+                public int compare(Count a, Count b) {
+                    return b.count - a.count;
+                }
+            });
+            return new ArrayList<Count>(all.subList(0,
+                    Math.min(TOP_N, all.size())));
+        }
+
+        /**
+         * Runs ninja, reading its merged standard and error output.
+         */
+        private ToolProcess run(File buildDir, String... args)
+                throws IOException {
+            final List<String> cmd = new ArrayList<String>();
+            cmd.add(ninja);
+            Collections.addAll(cmd, args);
+            return new ToolProcess(buildDir, cmd, true);
+        }
+    } // Explain
+}
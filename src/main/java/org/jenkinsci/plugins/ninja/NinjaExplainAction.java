@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.model.Run;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import jenkins.model.RunAction2;
+
+/**
+ * The grouped reasons why ninja rebuilt targets in a build.
+ */
+public class NinjaExplainAction implements RunAction2 {
+    private transient Run<?, ?> run;
+
+    private final int edges;
+    private final List<NinjaExplain.Count> reasons;
+    private final List<NinjaExplain.Count> inputs;
+    private final List<NinjaExplain.Count> rules;
+
+    NinjaExplainAction(NinjaExplain.Report report) {
+        this.edges = report.edges;
+        this.reasons = new ArrayList<NinjaExplain.Count>();
+        for (Map.Entry<NinjaExplain.Reason, Integer> e : report.reasons
+                .entrySet()) {
+            reasons.add(new NinjaExplain.Count(e.getKey().getDisplayName(), e
+                    .getValue()));
+        }
+        this.inputs = report.inputs;
+        this.rules = report.rules;
+    }
+
+    public String getIconFileName() {
+        return "search.png";
+    }
+
+    public String getDisplayName() {
+        return "Ninja Rebuild Causes";
+    }
+
+    public String getUrlName() {
+        return "ninja-explain";
+    }
+
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    /**
+     * Gets the number of edges ninja was about to run.
+     */
+    public int getEdges() {
+        return edges;
+    }
+
+    /**
+     * Gets how often each reason was given.
+     */
+    public List<NinjaExplain.Count> getReasons() {
+        return nonNull(reasons);
+    }
+
+    /**
+     * Gets the inputs that most often were newer than the outputs.
+     */
+    public List<NinjaExplain.Count> getInputs() {
+        return nonNull(inputs);
+    }
+
+    /**
+     * Gets the rules whose outputs were most often out of date.
+     */
+    public List<NinjaExplain.Count> getRules() {
+        return nonNull(rules);
+    }
+
+    private static List<NinjaExplain.Count> nonNull(
+            List<NinjaExplain.Count> list) {
+        return list == null ? Collections.<NinjaExplain.Count> emptyList()
+                : list;
+    }
+}
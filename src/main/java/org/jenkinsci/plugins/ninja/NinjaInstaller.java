@@ -9,26 +9,29 @@ package org.jenkinsci.plugins.ninja;
 import hudson.AbortException;
 import hudson.Extension;
 import hudson.FilePath;
-import hudson.Functions;
+import hudson.Util;
 import hudson.model.TaskListener;
 import hudson.model.DownloadService.Downloadable;
 import hudson.model.Node;
-import hudson.remoting.VirtualChannel;
 import hudson.tools.ToolInstaller;
 import hudson.tools.DownloadFromUrlInstaller;
 import hudson.tools.ToolInstallation;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Logger;
 
-import jenkins.MasterToSlaveFileCallable;
 import net.sf.json.JSONObject;
 
 import org.kohsuke.accmod.Restricted;
@@ -50,38 +53,93 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
     @Override
     public FilePath performInstallation(ToolInstallation tool, Node node,
             TaskListener log) throws IOException, InterruptedException {
+        try {
+            return install(tool, node, log);
+        } catch (IOException ex) {
+            NinjaMetrics.recordFailure(node.getNodeName(), id);
+            throw ex;
+        } catch (RuntimeException ex) {
+            NinjaMetrics.recordFailure(node.getNodeName(), id);
+            throw ex;
+        }
+    }
+
+    private FilePath install(ToolInstallation tool, Node node, TaskListener log)
+            throws IOException, InterruptedException {
         // Gather properties for the node to install on
-        final String[] nodeProperties = node.getChannel().call(
-                new GetSystemProperties("os.name", "os.arch"));
+        final long start = System.currentTimeMillis();
+        final NodePlatform platform = NodePlatformCache.get(node);
+        final long platformMillis = System.currentTimeMillis() - start;
 
-        final Installable inst = getInstallable(nodeProperties[0], nodeProperties[1]);
+        final VariantInstallable inst = (VariantInstallable) getInstallable(
+                platform.getOsName(), platform.getOsArch());
         if (inst == null) {
             String msg = String
                     .format("%s [%s]: No tool download known for OS `%s` and arch `%s`.",
                             getDescriptor().getDisplayName(), tool.getName(),
-                            nodeProperties[0], nodeProperties[1]);
+                            platform.getOsName(), platform.getOsArch());
             throw new AbortException(msg);
         }
 
         final FilePath toolPath = getFixedPreferredLocation(tool, node);
-        if (!isUpToDate(toolPath, inst)) {
-            if (toolPath.installIfNecessaryFrom(
-                    new URL(inst.url),
-                    log,
-                    "Unpacking " + inst.url + " to " + toolPath + " on "
-                            + node.getDisplayName())) {
-                // we don't use the timestamp..
-                toolPath.child(".timestamp").delete();
-                // pull up extra subdir...
-                FilePath base = findPullUpDirectory(toolPath);
-                if (base != null && !base.equals(toolPath)) {
-                    base.moveAllChildrenTo(toolPath);
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        final boolean cacheOnController = config != null
+                && config.isCacheOnController();
+        final String storeDir = getStoreDir(config, node);
+        // a single round-trip if the tool is up-to-date
+        InstallCallable.Result result = toolPath
+                .act(cacheOnController ? InstallCallable.checking(inst.url)
+                        : InstallCallable.downloading(inst.url,
+                                Mirrors.candidates(inst.url), inst.sha256,
+                                storeDir));
+        for (String failed : result.failedSources) {
+            Mirrors.record(failed, false, 0);
+            log.getLogger().println(
+                    "Failed to download " + failed + " on "
+                            + node.getDisplayName());
+        }
+        if (result.source != null) {
+            Mirrors.record(result.source, true, result.latencyMillis);
+        }
+        long fetchMillis = 0;
+        if (result.status == InstallCallable.Status.NEEDS_ARCHIVE) {
+            final InstallLock lock = InstallLock.acquire(node, toolPath, log);
+            try {
+                final long fetchStart = System.currentTimeMillis();
+                final File cached = ArchiveCache.fetch(new URL(inst.url),
+                        inst.sha256, log);
+                fetchMillis = System.currentTimeMillis() - fetchStart;
+                InputStream in = new FileInputStream(cached);
+                try {
+                    // re-checks, a concurrent build might have installed it
+                    result = toolPath.act(InstallCallable.streaming(inst.url,
+                            in, ArchiveCache.digestOf(cached), storeDir));
+                } finally {
+                    in.close();
                 }
-                // needed for executable flag
-                toolPath.act(new ChmodRecAPlusX());
-                // leave a record for the next up-to-date check
-                toolPath.child(".installedFrom").write(inst.url, "UTF-8");
+            } finally {
+                lock.release();
+            }
+        }
+        NinjaMetrics.recordInstall(node.getNodeName(), id, result,
+                platformMillis, fetchMillis);
+        if (result.status == InstallCallable.Status.INSTALLED) {
+            if (result.repaired) {
+                log.getLogger().println(
+                        "Replaced damaged ninja executable in " + toolPath
+                                + " on " + node.getDisplayName());
             }
+            log.getLogger().println(
+                    "Installed " + inst.url + " to " + toolPath + " on "
+                            + node.getDisplayName());
+            log.getLogger().println(
+                    String.format("Installation phases: platform %d ms,"
+                            + " check %d ms, fetch %d ms,"
+                            + " download and unpack %d ms (%d bytes),"
+                            + " publish %d ms", platformMillis,
+                            result.checkMillis, fetchMillis,
+                            result.unpackMillis, result.bytes,
+                            result.publishMillis));
         }
 
         return toolPath.child("ninja");
@@ -99,23 +157,35 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
      */
     public Installable getInstallable(String nodeOsName, String nodeOsArch)
             throws IOException {
-        List<NinjaInstallable> installables = ((DescriptorImpl) getDescriptor())
-                .getInstallables();
-
-        for (NinjaInstallable inst : installables)
-            if (id.equals(inst.id)) {
-                // Filter variants to install by system-properties
-                // for the node to install on
-                OsFamily osFamily = OsFamily.valueOfOsName(nodeOsName);
-                for (NinjaVariant variant : inst.variants) {
-                    if (variant.appliesTo(osFamily, nodeOsArch)) {
-                        // fill in URL for download machinery
-                        inst.url = variant.url;
-                        return inst;
-                    }
-                }
-            }
-        return null;
+        return ((DescriptorImpl) getDescriptor()).getIndex().lookup(id,
+                OsFamily.valueOfOsName(nodeOsName), nodeOsArch);
+    }
+
+    /**
+     * Gets the absolute path of the content-addressed store on the node.
+     *
+     * @return the path or {@code null} if no store is configured
+     */
+    private static String getStoreDir(NinjaConfiguration config, Node node) {
+        final String dir = config == null ? null : Util.fixEmptyAndTrim(config
+                .getNodeStoreDir());
+        if (dir == null)
+            return null;
+        // resolves relative paths against the node´s root directory
+        return node.getRootPath().child(dir).getRemote();
+    }
+
+    /**
+     * Gets the URL of the variant to install on a node.
+     *
+     * @param platform
+     *            the platform of the node
+     * @return the URL or {@code null} if no such matching variant is found.
+     */
+    String getInstallableUrl(NodePlatform platform) throws IOException {
+        final Installable inst = getInstallable(platform.getOsName(),
+                platform.getOsArch());
+        return inst == null ? null : inst.url;
     }
 
     /**
@@ -151,31 +221,6 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
     // //////////////////////////////////////////////////////////////////
     // inner classes
     // //////////////////////////////////////////////////////////////////
-    /**
-     * Sets execute permission on all files, since unzip etc. might not do this.
-     * Hackish, is there a better way?
-     */
-    private static class ChmodRecAPlusX extends MasterToSlaveFileCallable<Void> {
-        private static final long serialVersionUID = 1L;
-        public Void invoke(File d, VirtualChannel channel) throws IOException {
-            if(!Functions.isWindows())
-                process(d);
-            return null;
-        }
-        private void process(File f) {
-            if (f.isFile()) {
-                f.setExecutable(true, false);
-            } else {
-                File[] kids = f.listFiles();
-                if (kids != null) {
-                    for (File kid : kids) {
-                        process(kid);
-                    }
-                }
-            }
-        }
-    }
-
     @Extension
     public static final class DescriptorImpl extends
             DownloadFromUrlInstaller.DescriptorImpl<NinjaInstaller> {
@@ -184,6 +229,22 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
             return "Install from github ninja releases";
         }
 
+        /**
+         * how often the downloadable data is checked for changes, once it
+         * was loaded
+         */
+        private static final long CHECK_INTERVAL_MILLIS = 10 * 1000L;
+
+        /**
+         * the index of installables, rebuilt when the downloadable data
+         * changes
+         */
+        private transient volatile InstallableIndex index = InstallableIndex.EMPTY;
+        /** the downloadable data, or {@code null} if not looked up yet */
+        private transient volatile Downloadable downloadable;
+        /** the time the downloadable data was last checked for changes */
+        private transient volatile long checkedAt;
+
         /**
          * List of installable tools.
          *
@@ -194,13 +255,42 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
          */
         @Override
         public List<NinjaInstallable> getInstallables() throws IOException {
-            JSONObject d = Downloadable.get(getId()).getData();
-            if (d == null)
-                return Collections.emptyList();
-            Map<String, Class<?>> classMap = new HashMap<String, Class<?>>();
-            classMap.put("variants", NinjaVariant.class);
-            return Arrays.asList(((NinjaInstallableList) JSONObject.toBean(d,
-                    NinjaInstallableList.class, classMap)).list);
+            return getIndex().installables;
+        }
+
+        /**
+         * Gets the index of all installable tool variants. The index is
+         * re-built only if the data of the {@link Downloadable} changed. Once
+         * loaded, the data is checked for changes at most every
+         * {@value #CHECK_INTERVAL_MILLIS} milliseconds, so that looking up
+         * installables does no file system access in between.
+         *
+         * @return never null.
+         */
+        InstallableIndex getIndex() throws IOException {
+            InstallableIndex idx = index;
+            final long now = System.currentTimeMillis();
+            if (idx.stamp != 0 && now - checkedAt < CHECK_INTERVAL_MILLIS)
+                return idx;
+            Downloadable data = downloadable;
+            if (data == null) {
+                data = Downloadable.get(getId());
+                if (data == null)
+                    return InstallableIndex.EMPTY;
+                downloadable = data;
+            }
+            final long stamp = data.getDataFile().file.lastModified();
+            checkedAt = now;
+            if (idx.stamp != stamp) {
+                synchronized (this) {
+                    idx = index;
+                    if (idx.stamp != stamp) {
+                        idx = InstallableIndex.build(data.getData(), stamp);
+                        index = idx;
+                    }
+                }
+            }
+            return idx;
         }
 
         @Override
@@ -209,7 +299,152 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
         }
     } // DescriptorImpl
 
-    private static enum OsFamily {
+    /**
+     * An immutable index of all installable tool variants, keyed by installer
+     * ID, OS family and OS architecture.
+     */
+    static final class InstallableIndex {
+        static final InstallableIndex EMPTY = new InstallableIndex(
+                Collections.<NinjaInstallable> emptyList(),
+                Collections.<String, Map<OsFamily, ResolvedVariant[]>> emptyMap(),
+                0L);
+
+        /**
+         * the last-modified time of the downloadable data this index was
+         * built from
+         */
+        final long stamp;
+        /** the de-serialized installables, for the UI */
+        final List<NinjaInstallable> installables;
+        private final Map<String, Map<OsFamily, ResolvedVariant[]>> variants;
+
+        private InstallableIndex(List<NinjaInstallable> installables,
+                Map<String, Map<OsFamily, ResolvedVariant[]>> variants,
+                long stamp) {
+            this.installables = installables;
+            this.variants = variants;
+            this.stamp = stamp;
+        }
+
+        /**
+         * Builds the index from the JSON data of the downloadable.
+         *
+         * @param data
+         *            the JSON data or {@code null}
+         * @param stamp
+         *            the last-modified time of the JSON data
+         */
+        static InstallableIndex build(JSONObject data, long stamp) {
+            if (data == null)
+                return new InstallableIndex(EMPTY.installables,
+                        EMPTY.variants, stamp);
+            Map<String, Class<?>> classMap = new HashMap<String, Class<?>>();
+            classMap.put("variants", NinjaVariant.class);
+            NinjaInstallable[] list = ((NinjaInstallableList) JSONObject
+                    .toBean(data, NinjaInstallableList.class, classMap)).list;
+
+            Map<String, Map<OsFamily, ResolvedVariant[]>> variants = new HashMap<String, Map<OsFamily, ResolvedVariant[]>>();
+            for (NinjaInstallable inst : list) {
+                Map<OsFamily, ResolvedVariant[]> byOs = new EnumMap<OsFamily, ResolvedVariant[]>(
+                        OsFamily.class);
+                for (OsFamily osFamily : OsFamily.values()) {
+                    List<ResolvedVariant> matches = new ArrayList<ResolvedVariant>();
+                    List<ResolvedVariant> anyArch = new ArrayList<ResolvedVariant>();
+                    for (NinjaVariant variant : inst.variants) {
+                        if (osFamily.getDownloadSiteName().equals(variant.os)) {
+                            (variant.isAnyArch() ? anyArch : matches)
+                                    .add(new ResolvedVariant(variant, inst));
+                        }
+                    }
+                    // native binaries win over those for any architecture
+                    matches.addAll(anyArch);
+                    if (!matches.isEmpty()) {
+                        byOs.put(osFamily, matches
+                                .toArray(new ResolvedVariant[matches.size()]));
+                    }
+                }
+                if (!variants.containsKey(inst.id)) {
+                    // first one wins, as with the linear search before
+                    variants.put(inst.id, Collections.unmodifiableMap(byOs));
+                }
+            }
+            return new InstallableIndex(
+                    Collections.unmodifiableList(Arrays.asList(list)),
+                    Collections.unmodifiableMap(variants), stamp);
+        }
+
+        /**
+         * Looks up the installable variant for the specified node.
+         *
+         * @param id
+         *            the installer ID
+         * @param osFamily
+         *            the OS family of the node
+         * @param nodeOsArch
+         *            the value of the JVM system property "os.arch" of the node
+         * @return a shared installable with its URL filled in, which must not
+         *         be modified by the caller, or {@code null} if no such
+         *         matching variant is found.
+         */
+        VariantInstallable lookup(String id, OsFamily osFamily, String nodeOsArch) {
+            if (osFamily == null)
+                return null;
+            final Map<OsFamily, ResolvedVariant[]> byOs = variants.get(id);
+            if (byOs == null)
+                return null;
+            final ResolvedVariant[] candidates = byOs.get(osFamily);
+            if (candidates != null) {
+                // prefer a variant built for exactly this architecture
+                final String nodeArch = NinjaVariant.normalizeArch(nodeOsArch);
+                for (ResolvedVariant candidate : candidates) {
+                    if (nodeArch != null
+                            && nodeArch.equals(candidate.variant.arch))
+                        return candidate.installable;
+                }
+                for (ResolvedVariant candidate : candidates) {
+                    if (candidate.variant.appliesTo(osFamily, nodeOsArch))
+                        return candidate.installable;
+                }
+            }
+            return null;
+        }
+    } // InstallableIndex
+
+    /**
+     * A variant together with its pre-built installable.
+     */
+    private static final class ResolvedVariant {
+        final NinjaVariant variant;
+        final VariantInstallable installable;
+
+        ResolvedVariant(NinjaVariant variant, NinjaInstallable inst) {
+            this.variant = variant;
+            VariantInstallable installable = new VariantInstallable(
+                    variant.sha256, variant.size);
+            installable.id = inst.id;
+            installable.name = inst.name;
+            installable.url = variant.url;
+            this.installable = installable;
+        }
+    } // ResolvedVariant
+
+    /**
+     * An installable for a specific variant, with the digest and size of its
+     * archive.
+     */
+    static final class VariantInstallable extends Installable {
+        /** hex encoded SHA-256 digest of the archive or {@code null} */
+        final String sha256;
+        /** size of the archive in bytes or {@code 0} if unknown */
+        final long size;
+
+        VariantInstallable(String sha256, long size) {
+            this.sha256 = Util.fixEmptyAndTrim(sha256);
+            this.size = size;
+        }
+    } // VariantInstallable
+
+    static enum OsFamily {
         Linux("linux"), Windows("win"), OSX("mac");
         private final String downloadSiteName;
 
@@ -276,12 +511,21 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
         // URLs
         /** OS name as specified by the download site */
         public String os = "";
-        /** OS architecture as specified by the download site */
+        /**
+         * OS architecture, normalized as by {@link #normalizeArch}, or "-" if
+         * the variant runs on any architecture of the OS
+         */
         public String arch = "";
+        /** hex encoded SHA-256 digest of the archive or {@code null} */
+        public String sha256;
+        /** size of the archive in bytes or {@code 0} if unknown */
+        public long size;
 
         /**
          * Checks whether an installation of this NinjaVariant will work on the
          * given node. This checks the given JVM system properties of a node.
+         * An x86_64 variant also applies to nodes reporting x86, since a 32
+         * bit JVM reports x86 on a 64 bit OS as well.
          *
          * @param osFamily
          *            the OS family derived from the JVM system property
@@ -291,20 +535,42 @@ public class NinjaInstaller extends DownloadFromUrlInstaller {
          */
         public boolean appliesTo(OsFamily osFamily, String nodeOsArch) {
             if (osFamily != null && osFamily.getDownloadSiteName().equals(os)) {
-              // only "-" archs are provided by download site ATM
-                switch (osFamily) {
-                case Linux:
-                        return true;
-                case OSX:
-                        return true;
-                case Windows:
-                    return true;
-                default:
-                    break;
-                }
+                final String nodeArch = normalizeArch(nodeOsArch);
+                return isAnyArch() || arch.equals(nodeArch)
+                        || ("x86_64".equals(arch) && "x86".equals(nodeArch));
             }
             return false;
         }
+
+        /**
+         * Gets whether this variant runs on any architecture of its OS.
+         */
+        boolean isAnyArch() {
+            return arch == null || arch.length() == 0 || "-".equals(arch);
+        }
+
+        /**
+         * Maps the different names the JVM uses for a CPU architecture to the
+         * name used in the downloadable data.
+         *
+         * @param osArch
+         *            the value of the JVM system property "os.arch"
+         */
+        static String normalizeArch(String osArch) {
+            if (osArch == null)
+                return null;
+            final String arch = osArch.toLowerCase(Locale.ENGLISH);
+            if ("amd64".equals(arch) || "x86_64".equals(arch)
+                    || "x64".equals(arch))
+                return "x86_64";
+            if ("aarch64".equals(arch) || "arm64".equals(arch))
+                return "aarch64";
+            if ("x86".equals(arch) || "i386".equals(arch)
+                    || "i486".equals(arch) || "i586".equals(arch)
+                    || "i686".equals(arch))
+                return "x86";
+            return arch;
+        }
     }
 
     // Needs to be public for JSON deserialisation
@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jenkins.MasterToSlaveFileCallable;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads the edge timings of a build from ninja´s {@code .ninja_log} file and
+ * stores them in a compact, gzip compressed binary file. Each ninja
+ * invocation´s times are relative to its start; the stored times are made
+ * relative to the start of the first invocation of the build.
+ */
+public final class NinjaLog {
+    /** the name of ninja´s log file in the build directory */
+    static final String FILE_NAME = ".ninja_log";
+    /** the magic number of the binary timings file */
+    private static final int MAGIC = 0x4e4a5431; // NJT1
+    /** the number of slowest edges to keep in the summary */
+    static final int TOP_N = 20;
+    /**
+     * the number of bytes before the end of the log file remembered to
+     * detect that ninja rewrote the log
+     */
+    private static final int TAIL_LENGTH = 64;
+
+    private NinjaLog() {
+    }
+
+    /**
+     * Reads all edges from a binary timings file.
+     *
+     * @param timings
+     *            the file written by {@link Ingest}
+     * @param visitor
+     *            receives the edges in the order they were logged
+     */
+    static void read(File timings, EdgeVisitor visitor) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(timings))));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(timings + " is not a ninja timings file");
+            }
+            while (true) {
+                final int start;
+                try {
+                    start = in.readInt();
+                } catch (EOFException eof) {
+                    break;
+                }
+                visitor.edge(start, in.readInt(), in.readUTF());
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Parses the entries that were appended to a ninja log file since the
+     * specified position.
+     *
+     * @param logFile
+     *            the ninja log file
+     * @param from
+     *            the position of the end of the log file before the build
+     * @param visitor
+     *            receives the edges in the order they were logged
+     * @return the summed up wall time of all ninja invocations in milliseconds
+     * @throws RewrittenException
+     *             if ninja re-wrote the log since, so that the entries of the
+     *             build cannot be told apart from older ones
+     */
+    static long parse(File logFile, Position from, LogVisitor visitor)
+            throws IOException {
+        if (!logFile.isFile())
+            return 0;
+        final InputStream in = new FileInputStream(logFile);
+        try {
+            if (from.offset > 0) {
+                // ninja re-writes the log if it got too big
+                if (logFile.length() < from.offset)
+                    throw new RewrittenException(logFile);
+                IOUtils.skipFully(in, from.offset - from.tail.length);
+                final byte[] tail = new byte[from.tail.length];
+                IOUtils.readFully(in, tail);
+                if (!Arrays.equals(tail, from.tail))
+                    throw new RewrittenException(logFile);
+            }
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(in, "UTF-8"));
+            // the offset of the current ninja invocation
+            long base = 0;
+            int runEnd = 0;
+            int prevStart = -1, prevEnd = -1;
+            String prevHash = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#"))
+                    continue;
+                // start, end, mtime, output, command hash
+                final String[] fields = line.split("\t");
+                if (fields.length < 5)
+                    continue;
+                final int start, end;
+                try {
+                    start = Integer.parseInt(fields[0]);
+                    end = Integer.parseInt(fields[1]);
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                final String hash = fields[4];
+                if (start == prevStart && end == prevEnd
+                        && hash.equals(prevHash)) {
+                    visitor.output(fields[3]);
+                    continue;
+                }
+                if (end < runEnd) {
+                    // ninja logs edges in the order they finish, so a smaller
+                    // end time starts a new invocation
+                    base += runEnd;
+                    runEnd = 0;
+                }
+                runEnd = Math.max(runEnd, end);
+                prevStart = start;
+                prevEnd = end;
+                prevHash = hash;
+                visitor.edge((int) (base + start), (int) (base + end),
+                        fields[3]);
+            }
+            return base + runEnd;
+        } finally {
+            in.close();
+        }
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * The end of a ninja log file, remembered before a build to find the
+     * entries the build appended.
+     */
+    static final class Position implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** the position of a log file that did not exist */
+        static final Position START = new Position(0, new byte[0]);
+
+        /** the length of the log file */
+        final long offset;
+        /** the last bytes of the log file */
+        private final byte[] tail;
+
+        Position(long offset, byte[] tail) {
+            this.offset = offset;
+            this.tail = tail;
+        }
+
+        /**
+         * Gets the end of the specified log file.
+         */
+        static Position of(File logFile) throws IOException {
+            if (!logFile.isFile())
+                return START;
+            final InputStream in = new FileInputStream(logFile);
+            try {
+                final long offset = logFile.length();
+                final int n = (int) Math.min(offset, TAIL_LENGTH);
+                IOUtils.skipFully(in, offset - n);
+                final byte[] tail = new byte[n];
+                IOUtils.readFully(in, tail);
+                return new Position(offset, tail);
+            } finally {
+                in.close();
+            }
+        }
+    } // Position
+
+    /**
+     * Thrown if ninja re-wrote its log file during the build.
+     */
+    static final class RewrittenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RewrittenException(File logFile) {
+            super(logFile + " was re-written during the build");
+        }
+    } // RewrittenException
+
+    /**
+     * Receives edges read from a timings file.
+     */
+    interface EdgeVisitor {
+        /**
+         * @param start
+         *            the start time in milliseconds
+         * @param end
+         *            the end time in milliseconds
+         * @param path
+         *            the first output of the edge
+         */
+        void edge(int start, int end, String path) throws IOException;
+    }
+
+    /**
+     * Receives edges parsed from a ninja log file.
+     */
+    interface LogVisitor extends EdgeVisitor {
+        /**
+         * Called for each further output of the edge most recently passed to
+         * {@link #edge}.
+         */
+        void output(String path) throws IOException;
+    }
+
+    /**
+     * An edge of the build graph with its timing. Public, since the build
+     * page renders its properties.
+     */
+    public static final class Edge implements Serializable, Comparable<Edge> {
+        private static final long serialVersionUID = 1L;
+
+        /** the first output of the edge */
+        final String path;
+        /** the start time in milliseconds */
+        final int start;
+        /** the end time in milliseconds */
+        final int end;
+
+        Edge(String path, int start, int end) {
+            this.path = path;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Gets the duration in milliseconds.
+         */
+        public int getDuration() {
+            return end - start;
+        }
+
+        /**
+         * Orders by duration.
+         */
+        public int compareTo(Edge o) {
+            final int d = getDuration(), od = o.getDuration();
+            return d < od ? -1 : (d == od ? 0 : 1);
+        }
+    } // Edge
+
+    /**
+     * A summary of the edge timings of a build.
+     */
+    static final class Summary implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** the number of edges built */
+        final int edges;
+        /** the summed up wall time of all ninja invocations in milliseconds */
+        final long wallMillis;
+        /** the slowest edges, slowest first */
+        final List<Edge> slowest;
+
+        Summary(int edges, long wallMillis, List<Edge> slowest) {
+            this.edges = edges;
+            this.wallMillis = wallMillis;
+            this.slowest = slowest;
+        }
+    } // Summary
+
+    /**
+     * Gets the end of the ninja log file. Must be invoked on the log file.
+     */
+    static class Mark extends MasterToSlaveFileCallable<Position> {
+        private static final long serialVersionUID = 1L;
+
+        public Position invoke(File logFile, VirtualChannel channel)
+                throws IOException {
+            return Position.of(logFile);
+        }
+    } // Mark
+
+    /**
+     * Parses the entries that were appended to the ninja log file since the
+     * specified position. Writes the edges to the specified stream on the
+     * controller and returns a summary. Must be invoked on the log file. Only
+     * a bounded number of edges is held in memory.
+     */
+    static class Ingest extends MasterToSlaveFileCallable<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        /** the end of the log file before the build */
+        private final Position from;
+        private final OutputStream out;
+
+        /**
+         * @param from
+         *            the end of the log file before the build
+         * @param out
+         *            the stream on the controller to write the binary timings
+         *            to
+         */
+        Ingest(Position from, OutputStream out) {
+            this.from = from;
+            this.out = new RemoteOutputStream(out);
+        }
+
+        public Summary invoke(File logFile, VirtualChannel channel)
+                throws IOException {
+            final DataOutputStream data = new DataOutputStream(
+                    new BufferedOutputStream(new GZIPOutputStream(out)));
+            try {
+                data.writeInt(MAGIC);
+                final PriorityQueue<Edge> slowest = new PriorityQueue<Edge>(
+                        TOP_N + 1);
+                final int[] edges = new int[1];
+                final long wallMillis = parse(logFile, from,
+                        new LogVisitor() {
+                            public void edge(int start, int end, String path)
+                                    throws IOException {
+                                edges[0]++;
+                                data.writeInt(start);
+                                data.writeInt(end);
+                                data.writeUTF(path);
+                                slowest.add(new Edge(path, start, end));
+                                if (slowest.size() > TOP_N) {
+                                    slowest.poll();
+                                }
+                            }
+
+                            public void output(String path) {
+                            }
+                        });
+                final List<Edge> top = new ArrayList<Edge>(slowest);
+                Collections.sort(top, Collections.reverseOrder());
+                return new Summary(edges[0], wallMillis, top);
+            } finally {
+                data.close();
+            }
+        }
+    } // Ingest
+}
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Extension;
+import hudson.model.Node;
+import hudson.slaves.ComputerListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+
+/**
+ * Counters and phase timings of tool installations and build set ups, per
+ * build node and per installer. Each set of counters is registered as a JMX
+ * MBean in the platform MBean server. The counters of a node are dropped and
+ * unregistered when the node is removed.
+ */
+public final class NinjaMetrics {
+    private static final Logger LOGGER = Logger.getLogger(NinjaMetrics.class
+            .getName());
+    private static final String DOMAIN = "org.jenkinsci.plugins.ninja";
+    /** the name the controller´s own node is recorded under */
+    private static final String MASTER = "(master)";
+
+    /** the counters, keyed by scope and name */
+    private static final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+
+    private NinjaMetrics() {
+    }
+
+    /**
+     * Records a tool installation or up-to-date check.
+     *
+     * @param platformMillis
+     *            the time spent detecting the platform of the node
+     * @param fetchMillis
+     *            the time spent fetching the archive into the controller cache
+     */
+    static void recordInstall(String nodeName, String installerId,
+            InstallCallable.Result result, long platformMillis,
+            long fetchMillis) {
+        for (Counters c : of(nodeName, installerId)) {
+            if (result.status == InstallCallable.Status.INSTALLED) {
+                c.installs.incrementAndGet();
+                c.cacheMisses.incrementAndGet();
+            } else {
+                c.cacheHits.incrementAndGet();
+            }
+            c.bytesDownloaded.addAndGet(result.bytes);
+            c.platformMillis.addAndGet(platformMillis);
+            c.checkMillis.addAndGet(result.checkMillis);
+            c.fetchMillis.addAndGet(fetchMillis);
+            c.unpackMillis.addAndGet(result.unpackMillis);
+            c.publishMillis.addAndGet(result.publishMillis);
+        }
+    }
+
+    /**
+     * Records a failed tool installation.
+     */
+    static void recordFailure(String nodeName, String installerId) {
+        for (Counters c : of(nodeName, installerId)) {
+            c.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the set up of a build.
+     */
+    static void recordSetUp(String nodeName, long millis) {
+        final Counters c = get("node", nodeName);
+        c.setUps.incrementAndGet();
+        c.setUpMillis.addAndGet(millis);
+    }
+
+    /**
+     * Gets all counters as JSON, grouped by scope and name.
+     */
+    static JSONObject toJSON() {
+        final JSONObject json = new JSONObject();
+        for (Map.Entry<String, Counters> e : counters.entrySet()) {
+            final String[] key = e.getKey().split("\0", 2);
+            JSONObject scope = json.optJSONObject(key[0]);
+            if (scope == null) {
+                scope = new JSONObject();
+            }
+            scope.put(key[1], e.getValue().toJSON());
+            json.put(key[0], scope);
+        }
+        return json;
+    }
+
+    private static Counters[] of(String nodeName, String installerId) {
+        return new Counters[] { get("node", nodeName),
+                get("installer", String.valueOf(installerId)) };
+    }
+
+    private static Counters get(String scope, String name) {
+        if (name == null || name.length() == 0) {
+            name = MASTER;
+        }
+        final String key = scope + "\0" + name;
+        Counters c = counters.get(key);
+        if (c == null) {
+            final Counters created = new Counters();
+            c = counters.putIfAbsent(key, created);
+            if (c == null) {
+                c = created;
+                register(c, scope, name);
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Drops the counters of the nodes that no longer exist.
+     */
+    static void retainNodes(Set<String> nodeNames) {
+        final String prefix = "node\0";
+        for (String key : counters.keySet()) {
+            if (!key.startsWith(prefix))
+                continue;
+            final String name = key.substring(prefix.length());
+            if (!name.equals(MASTER) && !nodeNames.contains(name)) {
+                if (counters.remove(key) != null) {
+                    unregister("node", name);
+                }
+            }
+        }
+    }
+
+    private static ObjectName objectName(String scope, String name)
+            throws JMException {
+        return new ObjectName(DOMAIN + ":type=Metrics," + scope + "="
+                + ObjectName.quote(name));
+    }
+
+    private static void register(Counters c, String scope, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(c,
+                    objectName(scope, name));
+        } catch (JMException ex) {
+            LOGGER.log(Level.WARNING, "Failed to register ninja metrics MBean",
+                    ex);
+        }
+    }
+
+    private static void unregister(String scope, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                    objectName(scope, name));
+        } catch (JMException ex) {
+            LOGGER.log(Level.FINE, "Failed to unregister ninja metrics MBean",
+                    ex);
+        }
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * Drops the counters of removed nodes. Jenkins notifies of a changed
+     * configuration whenever a node is added or removed.
+     */
+    @Extension
+    public static final class NodeRemovalListener extends ComputerListener {
+        @Override
+        public void onConfigurationChange() {
+            final Set<String> names = new HashSet<String>();
+            for (Node node : Jenkins.getInstance().getNodes()) {
+                names.add(node.getNodeName());
+            }
+            retainNodes(names);
+        }
+    } // NodeRemovalListener
+
+    /**
+     * The management interface of {@link Counters}.
+     */
+    public interface CountersMBean {
+        long getInstalls();
+
+        long getBytesDownloaded();
+
+        long getCacheHits();
+
+        long getCacheMisses();
+
+        long getFailures();
+
+        long getPlatformMillis();
+
+        long getCheckMillis();
+
+        long getFetchMillis();
+
+        long getUnpackMillis();
+
+        long getPublishMillis();
+
+        long getSetUps();
+
+        long getSetUpMillis();
+    } // CountersMBean
+
+    /**
+     * The counters of a build node or an installer. Times are totals in
+     * milliseconds.
+     */
+    public static final class Counters implements CountersMBean {
+        final AtomicLong installs = new AtomicLong();
+        final AtomicLong bytesDownloaded = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();
+        final AtomicLong cacheMisses = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong platformMillis = new AtomicLong();
+        final AtomicLong checkMillis = new AtomicLong();
+        final AtomicLong fetchMillis = new AtomicLong();
+        final AtomicLong unpackMillis = new AtomicLong();
+        final AtomicLong publishMillis = new AtomicLong();
+        final AtomicLong setUps = new AtomicLong();
+        final AtomicLong setUpMillis = new AtomicLong();
+
+        public long getInstalls() {
+            return installs.get();
+        }
+
+        public long getBytesDownloaded() {
+            return bytesDownloaded.get();
+        }
+
+        public long getCacheHits() {
+            return cacheHits.get();
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getPlatformMillis() {
+            return platformMillis.get();
+        }
+
+        public long getCheckMillis() {
+            return checkMillis.get();
+        }
+
+        public long getFetchMillis() {
+            return fetchMillis.get();
+        }
+
+        public long getUnpackMillis() {
+            return unpackMillis.get();
+        }
+
+        public long getPublishMillis() {
+            return publishMillis.get();
+        }
+
+        public long getSetUps() {
+            return setUps.get();
+        }
+
+        public long getSetUpMillis() {
+            return setUpMillis.get();
+        }
+
+        JSONObject toJSON() {
+            final JSONObject json = new JSONObject();
+            json.put("installs", getInstalls());
+            json.put("bytesDownloaded", getBytesDownloaded());
+            json.put("cacheHits", getCacheHits());
+            json.put("cacheMisses", getCacheMisses());
+            json.put("failures", getFailures());
+            json.put("platformMillis", getPlatformMillis());
+            json.put("checkMillis", getCheckMillis());
+            json.put("fetchMillis", getFetchMillis());
+            json.put("unpackMillis", getUnpackMillis());
+            json.put("publishMillis", getPublishMillis());
+            json.put("setUps", getSetUps());
+            json.put("setUpMillis", getSetUpMillis());
+            return json;
+        }
+    } // Counters
+}
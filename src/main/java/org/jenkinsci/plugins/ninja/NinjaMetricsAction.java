@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+
+import java.io.IOException;
+
+import jenkins.model.Jenkins;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Serves the {@link NinjaMetrics} as JSON at {@code /ninja-metrics/} to
+ * administrators.
+ */
+@Extension
+public class NinjaMetricsAction implements RootAction {
+
+    public String getIconFileName() {
+        // not shown in the side panel
+        return null;
+    }
+
+    public String getDisplayName() {
+        return "Ninja Metrics";
+    }
+
+    public String getUrlName() {
+        return "ninja-metrics";
+    }
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(NinjaMetrics.toJSON().toString());
+    }
+}
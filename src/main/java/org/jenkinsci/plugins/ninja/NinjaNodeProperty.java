@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Extension;
+import hudson.model.Node;
+import hudson.slaves.NodeProperty;
+import hudson.slaves.NodePropertyDescriptor;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Node specific settings for ninja builds that override the values computed
+ * from the node´s hardware.
+ */
+public class NinjaNodeProperty extends NodeProperty<Node> {
+
+    /** the number of parallel jobs of ninja, 0 to compute it */
+    private final int jobs;
+    /** the load average limit of ninja, 0 to compute it */
+    private final int load;
+    /**
+     * the disk space ninja installations may take on this node in MiB, 0 for
+     * the global default
+     */
+    private int installQuotaMB;
+
+    @DataBoundConstructor
+    public NinjaNodeProperty(int jobs, int load) {
+        this.jobs = jobs;
+        this.load = load;
+    }
+
+    /**
+     * Gets the number of parallel jobs ninja should run on this node.
+     *
+     * @return the number of jobs or {@code 0} to compute it from the node´s
+     *         hardware
+     */
+    public int getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Gets the load average limit ninja should obey on this node.
+     *
+     * @return the limit or {@code 0} to compute it from the node´s hardware
+     */
+    public int getLoad() {
+        return load;
+    }
+
+    /**
+     * Gets the disk space ninja installations may take on this node. The
+     * least recently used installations are deleted if they take more.
+     *
+     * @return the quota in MiB or {@code 0} to use the global default
+     */
+    public int getInstallQuotaMB() {
+        return installQuotaMB;
+    }
+
+    @DataBoundSetter
+    public void setInstallQuotaMB(int installQuotaMB) {
+        this.installQuotaMB = installQuotaMB;
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    @Extension
+    public static class DescriptorImpl extends NodePropertyDescriptor {
+        @Override
+        public String getDisplayName() {
+            return "Ninja";
+        }
+    } // DescriptorImpl
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.model.InvisibleAction;
+
+/**
+ * The output cache hits and misses of a build, shown on the build page.
+ */
+public class NinjaOutputCacheAction extends InvisibleAction {
+    private final int localHits;
+    private final int remoteHits;
+    private final int misses;
+
+    NinjaOutputCacheAction(OutputCache.Stats stats) {
+        this.localHits = stats.localHits;
+        this.remoteHits = stats.remoteHits;
+        this.misses = stats.misses;
+    }
+
+    /**
+     * Gets the number of compilations served from the local cache.
+     */
+    public int getLocalHits() {
+        return localHits;
+    }
+
+    /**
+     * Gets the number of compilations served from the remote cache.
+     */
+    public int getRemoteHits() {
+        return remoteHits;
+    }
+
+    /**
+     * Gets the number of compilations that had to run.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the percentage of cacheable compilations served from the cache.
+     */
+    public int getHitRate() {
+        final int total = localHits + remoteHits + misses;
+        return total == 0 ? 0 : (localHits + remoteHits) * 100 / total;
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the recommended parallelism of ninja on a node from its CPU count,
+ * its memory size and the number of executors sharing the node.
+ */
+final class NinjaParallelism {
+    /** the name of the environment variable holding the number of jobs */
+    static final String ENV_JOBS = "NINJA_JOBS";
+    /** the name of the environment variable holding the load limit */
+    static final String ENV_LOAD = "NINJA_LOAD";
+    /**
+     * the name of the environment variable holding the ninja command-line
+     * arguments
+     */
+    static final String ENV_ARGS = "NINJA_ARGS";
+
+    /** the memory a single ninja job is assumed to need, in MiB */
+    private static final int MEMORY_PER_JOB_MB = Integer.getInteger(
+            NinjaParallelism.class.getName() + ".memoryPerJobMB", 1024);
+
+    /** the number of parallel jobs (-j) */
+    final int jobs;
+    /** the load average limit (-l) */
+    final int load;
+
+    private NinjaParallelism(int jobs, int load) {
+        this.jobs = jobs;
+        this.load = load;
+    }
+
+    /**
+     * Computes the recommended parallelism.
+     *
+     * @param platform
+     *            the platform of the node
+     * @param executors
+     *            the number of executors of the node
+     * @param maxJobs
+     *            the maximum number of jobs configured for the build job, 0
+     *            for no limit. Limits the node specific number of jobs, too.
+     * @param override
+     *            the node specific settings or {@code null}
+     */
+    static NinjaParallelism compute(NodePlatform platform, int executors,
+            int maxJobs, NinjaNodeProperty override) {
+        final int cpus = Math.max(1, platform.getCpuCount());
+        executors = Math.max(1, executors);
+        // each executor gets its share of the CPUs...
+        int jobs = Math.max(1, (cpus + executors - 1) / executors);
+        // ...and of the memory
+        final long memory = platform.getTotalMemory();
+        if (memory > 0) {
+            final long memoryJobs = memory / executors
+                    / (MEMORY_PER_JOB_MB * 1024L * 1024L);
+            jobs = (int) Math.max(1, Math.min(jobs, memoryJobs));
+        }
+        // do not start new jobs if the node is fully loaded
+        int load = cpus;
+        if (override != null) {
+            if (override.getJobs() > 0)
+                jobs = override.getJobs();
+            if (override.getLoad() > 0)
+                load = override.getLoad();
+        }
+        // the build job´s limit applies to the node´s setting, too
+        if (maxJobs > 0) {
+            jobs = Math.min(jobs, maxJobs);
+        }
+        return new NinjaParallelism(jobs, load);
+    }
+
+    /**
+     * Gets the environment variables to export.
+     *
+     * @param jobServer
+     *            whether a node-wide jobserver limits the number of jobs, in
+     *            which case no {@code -j} argument is recommended
+     */
+    Map<String, String> toEnvVars(boolean jobServer) {
+        Map<String, String> env = new HashMap<String, String>();
+        env.put(ENV_JOBS, Integer.toString(jobs));
+        env.put(ENV_LOAD, Integer.toString(load));
+        env.put(ENV_ARGS, jobServer ? "-l " + load : "-j " + jobs + " -l "
+                + load);
+        return env;
+    }
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.console.LineTransformationOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Collapses ninja´s {@code [n/m]} status lines in the console log to one line
+ * per interval. All other lines, such as compiler errors and warnings, pass
+ * through unchanged; the latest status line is written before them, so that
+ * they still show which edge they belong to.
+ */
+class NinjaProgressFilter extends LineTransformationOutputStream {
+    /** the status line format to make ninja use */
+    static final String NINJA_STATUS = "[%f/%t] ";
+    /** status lines longer than this are truncated while held back */
+    private static final int MAX_HELD = 4096;
+
+    private final OutputStream out;
+    private final long intervalMillis;
+    private final Charset charset;
+
+    /** the status line held back or {@code null} */
+    private byte[] held;
+    private int heldLength;
+    /** the time the last status line was written */
+    private long lastWritten;
+    /** the number of status lines not written */
+    private int collapsed;
+
+    /**
+     * @param out
+     *            the stream to write to
+     * @param intervalMillis
+     *            the minimum time between two status lines written
+     * @param charset
+     *            the charset of the console log
+     */
+    NinjaProgressFilter(OutputStream out, long intervalMillis, Charset charset) {
+        this.out = out;
+        this.intervalMillis = intervalMillis;
+        this.charset = charset;
+    }
+
+    @Override
+    protected void eol(byte[] b, int len) throws IOException {
+        final int slash = statusSlash(b, len);
+        if (slash < 0) {
+            writeHeld();
+            out.write(b, 0, len);
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (now - lastWritten >= intervalMillis || isLastEdge(b, slash)) {
+            if (held != null) {
+                collapsed++;
+                held = null;
+            }
+            lastWritten = now;
+            out.write(b, 0, len);
+        } else {
+            if (held != null) {
+                collapsed++;
+            }
+            hold(b, len);
+        }
+    }
+
+    /**
+     * Writes the status line held back, if any.
+     */
+    private void writeHeld() throws IOException {
+        if (held != null) {
+            out.write(held, 0, heldLength);
+            held = null;
+            lastWritten = System.currentTimeMillis();
+        }
+    }
+
+    private void hold(byte[] b, int len) {
+        if (held == null) {
+            held = new byte[Math.min(Math.max(len, 128), MAX_HELD)];
+        } else if (held.length < len && held.length < MAX_HELD) {
+            held = new byte[Math.min(len, MAX_HELD)];
+        }
+        if (len <= held.length) {
+            System.arraycopy(b, 0, held, 0, len);
+            heldLength = len;
+        } else {
+            // keep the line end
+            final int head = held.length - 1;
+            System.arraycopy(b, 0, held, 0, head);
+            held[head] = '\n';
+            heldLength = held.length;
+        }
+    }
+
+    /**
+     * Gets the position of the slash if the line starts with a ninja status
+     * of the form {@code [n/m]}.
+     *
+     * @return the position or {@code -1} if the line is not a status line
+     */
+    private static int statusSlash(byte[] b, int len) {
+        if (len < 5 || b[0] != '[')
+            return -1;
+        int i = 1;
+        int slash = -1;
+        for (; i < len; i++) {
+            final byte c = b[i];
+            if (c == '/' && slash < 0 && i > 1) {
+                slash = i;
+            } else if (c == ']') {
+                break;
+            } else if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return slash > 0 && i < len && i > slash + 1 ? slash : -1;
+    }
+
+    /**
+     * Gets whether the numbers on either side of the slash are equal.
+     */
+    private static boolean isLastEdge(byte[] b, int slash) {
+        final int n = slash - 1;
+        int m = slash + 1;
+        while (b[m] != ']') {
+            m++;
+        }
+        if (m - slash - 1 != n)
+            return false;
+        for (int i = 0; i < n; i++) {
+            if (b[1 + i] != b[slash + 1 + i])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        forceEol();
+        writeHeld();
+        if (collapsed > 0) {
+            out.write(("Collapsed " + collapsed + " ninja status lines\n")
+                    .getBytes(charset));
+        }
+        out.close();
+    }
+}
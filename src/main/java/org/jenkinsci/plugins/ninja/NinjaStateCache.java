@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import hudson.util.io.ArchiverFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+
+/**
+ * Saves ninja´s state files ({@code .ninja_log}, {@code .ninja_deps} and
+ * optionally further build artifacts) after a build and restores them into a
+ * fresh build directory, so that ninja can build incrementally even in
+ * ephemeral workspaces. The state is kept as gzip compressed tar files, either
+ * on the controller or in a directory shared by the nodes, and the least
+ * recently used files are evicted if the cache grows too big.
+ */
+final class NinjaStateCache {
+    /** the ninja state files always saved */
+    private static final String STATE_FILES = NinjaLog.FILE_NAME
+            + ",.ninja_deps";
+    private static final String SUFFIX = ".tgz";
+
+    /**
+     * the cache directory on the nodes or {@code null} to keep the cache on
+     * the controller
+     */
+    private final String sharedDir;
+    /** the maximum size of the cache in bytes */
+    private final long maxBytes;
+
+    private NinjaStateCache(String sharedDir, long maxBytes) {
+        this.sharedDir = sharedDir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the cache as configured globally.
+     */
+    static NinjaStateCache get() {
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        if (config == null)
+            return new NinjaStateCache(null, Long.MAX_VALUE);
+        return new NinjaStateCache(config.getStateCacheDir(),
+                config.getStateCacheMaxMB() * 1024L * 1024L);
+    }
+
+    /**
+     * Computes the key of a cache entry.
+     *
+     * @param parts
+     *            the job name, branch, toolchain fingerprint etc.
+     */
+    static String key(String... parts) throws IOException {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every JRE is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+        for (String part : parts) {
+            md.update(String.valueOf(part).getBytes("UTF-8"));
+            md.update((byte) 0);
+        }
+        return Util.toHexString(md.digest());
+    }
+
+    /**
+     * Restores the state into the build directory.
+     *
+     * @return {@code true} if state was found in the cache
+     */
+    boolean restore(FilePath buildDir, String key)
+            throws IOException, InterruptedException {
+        if (sharedDir != null) {
+            return buildDir.act(new RestoreShared(sharedDir, key));
+        }
+        final File entry = new File(getControllerDir(), key + SUFFIX);
+        if (!entry.isFile())
+            return false;
+        // marks the entry as recently used
+        entry.setLastModified(System.currentTimeMillis());
+        buildDir.mkdirs();
+        final InputStream in = new FileInputStream(entry);
+        try {
+            buildDir.untarFrom(in, FilePath.TarCompression.GZIP);
+        } finally {
+            in.close();
+        }
+        return true;
+    }
+
+    /**
+     * Saves the state from the build directory and evicts the least recently
+     * used entries if the cache grows too big.
+     *
+     * @param includes
+     *            an Ant glob of further files to save, relative to the build
+     *            directory, or {@code null}
+     * @return the number of files saved
+     */
+    int save(FilePath buildDir, String key, String includes)
+            throws IOException, InterruptedException {
+        final String glob = includes == null ? STATE_FILES : STATE_FILES + ","
+                + includes;
+        if (sharedDir != null) {
+            return buildDir.act(new SaveShared(sharedDir, key, glob, maxBytes));
+        }
+        final File dir = getControllerDir();
+        dir.mkdirs();
+        final File tmp = File.createTempFile(key, ".tmp", dir);
+        final int count;
+        try {
+            final OutputStream out = new FileOutputStream(tmp);
+            try {
+                count = buildDir.archive(ArchiverFactory.TARGZ, out, glob);
+            } finally {
+                out.close();
+            }
+            replace(tmp, new File(dir, key + SUFFIX));
+        } finally {
+            tmp.delete();
+        }
+        evict(dir, maxBytes);
+        return count;
+    }
+
+    private static File getControllerDir() {
+        return new File(Jenkins.getInstance().getRootDir(),
+                "caches/ninja-state");
+    }
+
+    private static void replace(File tmp, File entry) throws IOException {
+        entry.delete();
+        if (!tmp.renameTo(entry)) {
+            throw new IOException("Failed to rename " + tmp + " to " + entry);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is not bigger
+     * than the specified size.
+     */
+    private static void evict(File dir, long maxBytes) {
+        final File[] entries = dir.listFiles();
+        if (entries == null)
+            return;
+        long total = 0;
+        for (File entry : entries) {
+            total += entry.length();
+        }
+        if (total <= maxBytes)
+            return;
+        final long[] modified = new long[entries.length];
+        // sort by a snapshot, lastModified may change while sorting
+        final Integer[] order = new Integer[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            modified[i] = entries[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return modified[a] < modified[b] ? -1
+                        : (modified[a] == modified[b] ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < order.length && total > maxBytes; i++) {
+            final File entry = entries[order[i]];
+            if (entry.getName().endsWith(SUFFIX)) {
+                final long length = entry.length();
+                if (entry.delete()) {
+                    total -= length;
+                }
+            }
+        }
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * Restores the state from a directory shared by the nodes. Must be invoked
+     * on the build directory.
+     */
+    private static class RestoreShared extends
+            MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final String sharedDir;
+        private final String key;
+
+        RestoreShared(String sharedDir, String key) {
+            this.sharedDir = sharedDir;
+            this.key = key;
+        }
+
+        public Boolean invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final File entry = new File(sharedDir, key + SUFFIX);
+            if (!entry.isFile())
+                return false;
+            entry.setLastModified(System.currentTimeMillis());
+            buildDir.mkdirs();
+            final InputStream in = new FileInputStream(entry);
+            try {
+                new FilePath(buildDir).untarFrom(in,
+                        FilePath.TarCompression.GZIP);
+            } finally {
+                in.close();
+            }
+            return true;
+        }
+    } // RestoreShared
+
+    /**
+     * Saves the state to a directory shared by the nodes. Must be invoked on
+     * the build directory.
+     */
+    private static class SaveShared extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final String sharedDir;
+        private final String key;
+        private final String glob;
+        private final long maxBytes;
+
+        SaveShared(String sharedDir, String key, String glob, long maxBytes) {
+            this.sharedDir = sharedDir;
+            this.key = key;
+            this.glob = glob;
+            this.maxBytes = maxBytes;
+        }
+
+        public Integer invoke(File buildDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final File dir = new File(sharedDir);
+            dir.mkdirs();
+            final File tmp = File.createTempFile(key, ".tmp", dir);
+            final int count;
+            try {
+                final OutputStream out = new FileOutputStream(tmp);
+                try {
+                    count = new FilePath(buildDir).archive(
+                            ArchiverFactory.TARGZ, out, glob);
+                } finally {
+                    out.close();
+                }
+                replace(tmp, new File(dir, key + SUFFIX));
+            } finally {
+                tmp.delete();
+            }
+            evict(dir, maxBytes);
+            return count;
+        }
+    } // SaveShared
+}
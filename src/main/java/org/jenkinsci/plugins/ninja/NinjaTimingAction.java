@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Util;
+import hudson.model.Run;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+import jenkins.model.RunAction2;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * The ninja edge timings of a build. Only a summary is stored in the build
+ * record, the timings of all edges are kept in a separate, compact binary
+ * file in the build directory.
+ */
+public class NinjaTimingAction implements RunAction2 {
+    /** the name of the binary timings file in the build directory */
+    static final String TIMINGS_FILE = "ninja-timings.bin";
+
+    private transient Run<?, ?> run;
+
+    private final int edges;
+    private final long wallMillis;
+    private final List<NinjaLog.Edge> slowest;
+
+    NinjaTimingAction(NinjaLog.Summary summary) {
+        this.edges = summary.edges;
+        this.wallMillis = summary.wallMillis;
+        this.slowest = summary.slowest;
+    }
+
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    public String getDisplayName() {
+        return "Ninja Timings";
+    }
+
+    public String getUrlName() {
+        return "ninja-timings";
+    }
+
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    /**
+     * Gets the number of edges ninja built.
+     */
+    public int getEdges() {
+        return edges;
+    }
+
+    /**
+     * Gets the summed up wall time of all ninja invocations in milliseconds.
+     */
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    public String getWallTimeString() {
+        return Util.getTimeSpanString(wallMillis);
+    }
+
+    /**
+     * Gets the slowest edges, slowest first.
+     */
+    public List<NinjaLog.Edge> getSlowest() {
+        return slowest == null ? Collections.<NinjaLog.Edge> emptyList()
+                : slowest;
+    }
+
+    /**
+     * Gets the binary file holding the timings of all edges.
+     */
+    File getTimingsFile() {
+        return new File(run.getRootDir(), TIMINGS_FILE);
+    }
+
+    /**
+     * Downloads the timings of all edges as CSV, in the order ninja logged
+     * them. The edges are streamed from the binary timings file.
+     */
+    public void doEdges(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
+        final File timings = getTimingsFile();
+        if (!timings.isFile()) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        rsp.setContentType("text/csv;charset=UTF-8");
+        rsp.setHeader("Content-Disposition",
+                "attachment; filename=ninja-timings.csv");
+        final Writer out = new BufferedWriter(new OutputStreamWriter(
+                rsp.getOutputStream(), "UTF-8"));
+        writeCsv(timings, out);
+        out.flush();
+    }
+
+    /**
+     * Writes the edges of a binary timings file as CSV.
+     */
+    static void writeCsv(File timings, final Writer out) throws IOException {
+        out.write("target,start_ms,end_ms,duration_ms\n");
+        NinjaLog.read(timings, new NinjaLog.EdgeVisitor() {
+            public void edge(int start, int end, String path)
+                    throws IOException {
+                out.write(quote(path) + "," + start + "," + end + ","
+                        + (end - start) + "\n");
+            }
+        });
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Gets the timings action of the specified build, if any.
+     */
+    static NinjaTimingAction of(Run<?, ?> run) {
+        return run == null ? null : run.getAction(NinjaTimingAction.class);
+    }
+}
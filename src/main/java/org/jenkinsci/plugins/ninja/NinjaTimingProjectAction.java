@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.model.Action;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.util.ChartUtil;
+import hudson.util.ChartUtil.NumberOnlyBuildLabel;
+import hudson.util.DataSetBuilder;
+import hudson.util.Graph;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Calendar;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.CategoryDataset;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Shows the trend of ninja build times on the project page.
+ */
+public class NinjaTimingProjectAction implements Action {
+    /** the number of most recent builds the trend is taken from */
+    private static final int MAX_BUILDS = 50;
+
+    private final AbstractProject<?, ?> project;
+
+    NinjaTimingProjectAction(AbstractProject<?, ?> project) {
+        this.project = project;
+    }
+
+    public String getIconFileName() {
+        return null;
+    }
+
+    public String getDisplayName() {
+        return "Ninja Timings Trend";
+    }
+
+    public String getUrlName() {
+        return "ninja-timings";
+    }
+
+    public AbstractProject<?, ?> getProject() {
+        return project;
+    }
+
+    /**
+     * Gets whether any of the recent builds has timings to show.
+     */
+    public boolean isTrendVisible() {
+        int count = 0;
+        for (AbstractBuild<?, ?> b = project.getLastBuild(); b != null
+                && count < MAX_BUILDS; b = b.getPreviousBuild(), count++) {
+            if (NinjaTimingAction.of(b) != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Renders the trend graph.
+     */
+    public void doTrend(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
+        final AbstractBuild<?, ?> lastBuild = project.getLastBuild();
+        if (lastBuild == null) {
+            rsp.setStatus(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        final Calendar timestamp = lastBuild.getTimestamp();
+        new Graph(timestamp, 500, 200) {
+            @Override
+            protected JFreeChart createGraph() {
+                return createChart(buildDataSet());
+            }
+        }.doPng(req, rsp);
+    }
+
+    private CategoryDataset buildDataSet() {
+        final DataSetBuilder<String, NumberOnlyBuildLabel> dsb = new DataSetBuilder<String, NumberOnlyBuildLabel>();
+        int count = 0;
+        for (AbstractBuild<?, ?> b = project.getLastBuild(); b != null
+                && count < MAX_BUILDS; b = b.getPreviousBuild(), count++) {
+            final NinjaTimingAction action = NinjaTimingAction.of(b);
+            if (action != null) {
+                dsb.add(action.getWallMillis() / 1000.0, "wall time [s]",
+                        new NumberOnlyBuildLabel(b));
+            }
+        }
+        return dsb.build();
+    }
+
+    private static JFreeChart createChart(CategoryDataset dataset) {
+        final JFreeChart chart = ChartFactory.createLineChart(null, null,
+                "seconds", dataset, PlotOrientation.VERTICAL, true, true,
+                false);
+        chart.setBackgroundPaint(Color.white);
+        final CategoryPlot plot = chart.getCategoryPlot();
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setOutlinePaint(null);
+        plot.setRangeGridlinesVisible(true);
+        plot.setRangeGridlinePaint(Color.black);
+        final CategoryAxis domainAxis = new ChartUtil.ShiftedCategoryAxis(null);
+        plot.setDomainAxis(domainAxis);
+        domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+        domainAxis.setLowerMargin(0.0);
+        domainAxis.setUpperMargin(0.0);
+        domainAxis.setCategoryMargin(0.0);
+        return chart;
+    }
+}
@@ -87,10 +87,18 @@ public class NinjaTool extends ToolInstallation implements
         }
     }
 
+    /**
+     * Overwritten to re-use the home directory this tool was resolved to on
+     * the node by a previous build, if nothing changed meanwhile.
+     */
     public NinjaTool forNode(Node node, TaskListener log) throws IOException,
             InterruptedException {
-        return new NinjaTool(getName(), translateFor(node, log),
-                getProperties().toList());
+        String home = ToolResolutionCache.get(this, node);
+        if (home == null) {
+            home = translateFor(node, log);
+            ToolResolutionCache.put(this, node, home);
+        }
+        return new NinjaTool(getName(), home, getProperties().toList());
     }
 
     public NinjaTool forEnvironment(EnvVars environment) {
@@ -168,6 +176,15 @@ public class NinjaTool extends ToolInstallation implements
             return true;
         }
 
+        /**
+         * Overwritten to drop cached tool resolutions.
+         */
+        @Override
+        public void setInstallations(NinjaTool... installations) {
+            super.setInstallations(installations);
+            ToolResolutionCache.invalidateAll();
+        }
+
         /**
          * Overwritten to make ninja auto-installer a default option.
          */
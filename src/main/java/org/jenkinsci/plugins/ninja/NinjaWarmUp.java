@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.PeriodicWork;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+
+/**
+ * Installs the configured ninja tools on build nodes in the background, so
+ * that builds find ninja already installed. Installation is triggered when a
+ * node comes online and when a new download is published for a configured
+ * installer. The number of concurrent installations is limited.
+ */
+@Extension
+public class NinjaWarmUp extends ComputerListener {
+    private static final Logger logger = Logger.getLogger(NinjaWarmUp.class
+            .getName());
+
+    private static final ThreadPoolExecutor executor;
+    static {
+        executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NamingThreadFactory(
+                        new DaemonThreadFactory(), "Ninja warm-up"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** node and tool names of the pending installations */
+    private static final Set<String> pending = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @Override
+    public void onOnline(Computer c, TaskListener listener) {
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        if (config != null && config.isWarmUp()) {
+            schedule(c, config);
+        }
+    }
+
+    /**
+     * Schedules the installation of all ninja tools on all online nodes.
+     */
+    static void scheduleAll() {
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        if (config == null || !config.isWarmUp())
+            return;
+        for (Computer c : Jenkins.getInstance().getComputers()) {
+            if (c.isOnline()) {
+                schedule(c, config);
+            }
+        }
+    }
+
+    /**
+     * Schedules the installation of all ninja tools on the specified computer.
+     */
+    private static void schedule(Computer c, NinjaConfiguration config) {
+        final Node node = c.getNode();
+        if (node == null || node.getNumExecutors() == 0)
+            return;
+        final int concurrency = Math.max(1, config.getWarmUpConcurrency());
+        synchronized (executor) {
+            if (executor.getMaximumPoolSize() != concurrency) {
+                if (concurrency > executor.getMaximumPoolSize()) {
+                    executor.setMaximumPoolSize(concurrency);
+                    executor.setCorePoolSize(concurrency);
+                } else {
+                    executor.setCorePoolSize(concurrency);
+                    executor.setMaximumPoolSize(concurrency);
+                }
+            }
+        }
+        final NinjaTool.DescriptorImpl descriptor = (NinjaTool.DescriptorImpl) Jenkins
+                .getInstance().getDescriptor(NinjaTool.class);
+        for (NinjaTool tool : descriptor.getInstallations()) {
+            if (!hasNinjaInstaller(tool))
+                continue;
+            final String key = node.getNodeName() + '\0' + tool.getName();
+            if (pending.add(key)) {
+                executor.execute(new Installation(key, node, tool));
+            }
+        }
+    }
+
+    private static boolean hasNinjaInstaller(NinjaTool tool) {
+        final InstallSourceProperty installSource = tool.getProperties().get(
+                InstallSourceProperty.class);
+        if (installSource != null) {
+            for (ToolInstaller installer : installSource.installers) {
+                if (installer instanceof NinjaInstaller)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * Installs a tool on a node.
+     */
+    private static class Installation implements Runnable {
+        private final String key;
+        private final Node node;
+        private final NinjaTool tool;
+
+        Installation(String key, Node node, NinjaTool tool) {
+            this.key = key;
+            this.node = node;
+            this.tool = tool;
+        }
+
+        public void run() {
+            try {
+                final Computer c = node.toComputer();
+                if (c == null || c.isOffline())
+                    return;
+                final TaskListener listener = new LogTaskListener(logger,
+                        Level.FINE);
+                final NinjaTool installed = tool.forNode(node, listener);
+                logger.fine("Warmed up " + tool.getName() + " on "
+                        + node.getDisplayName() + ": " + installed.getHome());
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Failed to install " + tool.getName()
+                        + " on " + node.getDisplayName(), ex);
+            } catch (InterruptedException ex) {
+                logger.log(Level.FINE, "Interrupted", ex);
+            } finally {
+                pending.remove(key);
+            }
+        }
+    } // Installation
+
+    /**
+     * Periodically checks for newly published downloads and rolls them out to
+     * all online nodes.
+     */
+    @Extension
+    public static class Rollout extends PeriodicWork {
+        /**
+         * the stamp of the installable index seen last, {@code 0} if not yet
+         * checked
+         */
+        private long lastStamp;
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.MINUTES.toMillis(15);
+        }
+
+        @Override
+        protected void doRun() throws Exception {
+            final NinjaInstaller.DescriptorImpl descriptor = (NinjaInstaller.DescriptorImpl) Jenkins
+                    .getInstance().getDescriptor(NinjaInstaller.class);
+            final long stamp = descriptor.getIndex().stamp;
+            if (lastStamp != 0 && stamp != lastStamp) {
+                logger.info("New ninja downloads published, installing on all nodes");
+                scheduleAll();
+            }
+            lastStamp = stamp;
+        }
+    } // Rollout
+}
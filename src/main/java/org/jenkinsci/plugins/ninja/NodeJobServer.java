@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Functions;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * A node-wide, GNU make compatible jobserver that lets concurrent ninja builds
+ * on a node share a single pool of job tokens. The jobserver is a named pipe
+ * below the node´s root directory that is held open by the node´s JVM. Ninja
+ * (since 1.13) and GNU make (since 4.4) find it through the {@code MAKEFLAGS}
+ * environment variable.
+ * <p>
+ * The builds using the pool are tracked. Builds no longer running on the node
+ * are dropped when another build attaches, so builds whose tear down never
+ * ran, for example across a restart of the controller, do not keep the pool
+ * busy. Whenever a build attaches to an idle pool, the pool is drained and
+ * refilled, so tokens lost by killed or crashed
+ * processes are restored and a changed number of jobs takes effect. While
+ * builds are using the pool, more jobs are added at once and fewer jobs are
+ * taken out as far as tokens are free.
+ */
+final class NodeJobServer {
+    private static final Logger logger = Logger.getLogger(NodeJobServer.class
+            .getName());
+
+    /** the name of the environment variable that advertises the jobserver */
+    static final String ENV_MAKEFLAGS = "MAKEFLAGS";
+
+    /** the name of the named pipe in the node´s root directory */
+    private static final String FIFO_NAME = "ninja-jobserver.fifo";
+
+    /**
+     * the pools opened by this JVM, keyed by the path of the named pipe. Only
+     * used on the nodes.
+     */
+    private static final Map<String, Pool> pools = new HashMap<String, Pool>();
+
+    private NodeJobServer() {
+    }
+
+    /**
+     * Gets the value of the {@code MAKEFLAGS} environment variable that makes
+     * clients use the jobserver.
+     *
+     * @param makeFlags
+     *            the value of {@code MAKEFLAGS} without the jobserver, may be
+     *            {@code null}
+     * @param fifoPath
+     *            the path of the named pipe
+     * @param jobs
+     *            the total number of jobs of the jobserver
+     */
+    static String makeFlags(String makeFlags, String fifoPath, int jobs) {
+        final String flags = " -j" + jobs + " --jobserver-auth=fifo:"
+                + fifoPath;
+        // the last option wins, so the user´s flags are kept in front
+        return makeFlags == null ? flags : makeFlags + flags;
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * The named pipe of a jobserver and the builds using it.
+     */
+    private static final class Pool {
+        private final RandomAccessFile file;
+        /** to check for free tokens, shares the descriptor of the file */
+        private final FileInputStream in;
+        /** the IDs of the builds using the pool */
+        private final Set<String> clients = new HashSet<String>();
+        /** the total number of jobs */
+        private int jobs;
+
+        Pool(RandomAccessFile file) throws IOException {
+            this.file = file;
+            this.in = new FileInputStream(file.getFD());
+        }
+
+        /**
+         * Adds a build, adjusting the tokens to the specified number of jobs.
+         *
+         * @param running
+         *            the IDs of all builds running on the node
+         */
+        void attach(String client, int jobs, Collection<String> running)
+                throws IOException {
+            clients.retainAll(running);
+            if (clients.isEmpty()) {
+                // nobody holds a token, drop any leftovers and refill
+                take(Integer.MAX_VALUE);
+                put(jobs - 1); // each client has an implicit token
+            } else if (jobs > this.jobs) {
+                put(jobs - this.jobs);
+            } else if (jobs < this.jobs) {
+                // tokens in use are not returned to the pool until it is idle
+                take(this.jobs - jobs);
+            }
+            this.jobs = jobs;
+            clients.add(client);
+        }
+
+        /**
+         * Removes a build.
+         */
+        void detach(String client) {
+            clients.remove(client);
+        }
+
+        private void put(int tokens) throws IOException {
+            if (tokens <= 0)
+                return;
+            final byte[] buf = new byte[tokens];
+            Arrays.fill(buf, (byte) '+');
+            file.write(buf);
+        }
+
+        /**
+         * Takes up to the specified number of tokens without blocking.
+         */
+        private void take(int tokens) throws IOException {
+            final byte[] buf = new byte[256];
+            int available;
+            while (tokens > 0 && (available = in.available()) > 0) {
+                final int n = in.read(buf, 0,
+                        Math.min(tokens, Math.min(available, buf.length)));
+                if (n <= 0)
+                    break;
+                tokens -= n;
+            }
+        }
+    } // Pool
+
+    /**
+     * Starts the jobserver on the node, if not already running, and registers
+     * a build as its client. Must be invoked on the node´s root directory.
+     * Returns the path of the named pipe or {@code null} if the node does not
+     * support named pipes.
+     */
+    static class Attach extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        /** the ID of the build */
+        private final String client;
+        /** the total number of jobs */
+        private final int jobs;
+        /** the IDs of all builds running on the node */
+        private final Set<String> running;
+
+        /**
+         * @param client
+         *            the ID of the build
+         * @param jobs
+         *            the total number of jobs
+         * @param running
+         *            the IDs of all builds running on the node
+         */
+        Attach(String client, int jobs, Set<String> running) {
+            this.client = client;
+            this.jobs = jobs;
+            this.running = running;
+        }
+
+        public String invoke(File rootDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            if (Functions.isWindows())
+                return null;
+            final File fifo = new File(rootDir, FIFO_NAME);
+            final String path = fifo.getAbsolutePath();
+            synchronized (pools) {
+                Pool pool = pools.get(path);
+                if (pool == null) {
+                    if (fifo.exists()) {
+                        // left over from a previous JVM, its tokens are lost
+                        fifo.delete();
+                    }
+                    rootDir.mkdirs();
+                    final Process mkfifo = new ProcessBuilder("mkfifo", "-m",
+                            "600", path).redirectErrorStream(true).start();
+                    mkfifo.getOutputStream().close();
+                    mkfifo.getInputStream().close();
+                    if (mkfifo.waitFor() != 0) {
+                        logger.warning("Failed to create " + path);
+                        return null;
+                    }
+                    // opening read-write does not block and keeps the tokens
+                    pool = new Pool(new RandomAccessFile(fifo, "rw"));
+                    pools.put(path, pool);
+                    logger.fine("Started jobserver " + path);
+                }
+                pool.attach(client, jobs, running);
+                logger.fine(client + " attached to jobserver " + path
+                        + " with " + jobs + " jobs");
+                return path;
+            }
+        }
+    } // Attach
+
+    /**
+     * Unregisters a build from the jobserver. Must be invoked on the node´s
+     * root directory.
+     */
+    static class Detach extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        /** the ID of the build */
+        private final String client;
+
+        Detach(String client) {
+            this.client = client;
+        }
+
+        public Void invoke(File rootDir, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final String path = new File(rootDir, FIFO_NAME).getAbsolutePath();
+            synchronized (pools) {
+                final Pool pool = pools.get(path);
+                if (pool != null) {
+                    pool.detach(client);
+                }
+            }
+            return null;
+        }
+    } // Detach
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import java.io.File;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Immutable facts about the platform of a build node.
+ */
+final class NodePlatform implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** the value of the JVM system property "os.name" of the node */
+    private final String osName;
+    /** the value of the JVM system property "os.arch" of the node */
+    private final String osArch;
+    private final int cpuCount;
+    /** total physical memory in bytes or {@code -1} if unknown */
+    private final long totalMemory;
+    /** the C library flavour ("glibc" or "musl") or {@code null} if unknown */
+    private final String libc;
+
+    NodePlatform(String osName, String osArch, int cpuCount,
+            long totalMemory, String libc) {
+        this.osName = osName;
+        this.osArch = osArch;
+        this.cpuCount = cpuCount;
+        this.totalMemory = totalMemory;
+        this.libc = libc;
+    }
+
+    public String getOsName() {
+        return osName;
+    }
+
+    public String getOsArch() {
+        return osArch;
+    }
+
+    public int getCpuCount() {
+        return cpuCount;
+    }
+
+    /**
+     * Gets the total physical memory of the node.
+     *
+     * @return the memory size in bytes or {@code -1} if unknown
+     */
+    public long getTotalMemory() {
+        return totalMemory;
+    }
+
+    /**
+     * Gets the C library flavour of the node.
+     *
+     * @return "glibc", "musl" or {@code null} if unknown or not applicable
+     */
+    public String getLibc() {
+        return libc;
+    }
+
+    @Override
+    public String toString() {
+        return osName + "/" + osArch + ", " + cpuCount + " CPUs, "
+                + totalMemory + " bytes, libc=" + libc;
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * A Callable that gathers the platform facts on the (remote) node.
+     */
+    static final class Probe extends
+            MasterToSlaveCallable<NodePlatform, InterruptedException> {
+        private static final long serialVersionUID = 1L;
+
+        public NodePlatform call() {
+            final String osName = System.getProperty("os.name");
+            return new NodePlatform(osName, System.getProperty("os.arch"),
+                    Runtime.getRuntime().availableProcessors(),
+                    getTotalPhysicalMemory(), getLibc(osName));
+        }
+
+        private static long getTotalPhysicalMemory() {
+            OperatingSystemMXBean os = ManagementFactory
+                    .getOperatingSystemMXBean();
+            try {
+                if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                    return ((com.sun.management.OperatingSystemMXBean) os)
+                            .getTotalPhysicalMemorySize();
+                }
+            } catch (NoClassDefFoundError ignore) {
+                // com.sun.management is not available on all JVMs
+            }
+            return -1;
+        }
+
+        private static String getLibc(String osName) {
+            if (!"Linux".equals(osName))
+                return null;
+            String[] names = new File("/lib").list();
+            if (names != null) {
+                for (String name : names) {
+                    if (name.startsWith("ld-musl-"))
+                        return "musl";
+                }
+            }
+            return "glibc";
+        }
+    } // Probe
+}
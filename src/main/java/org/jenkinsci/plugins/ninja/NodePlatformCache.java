@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.slaves.ComputerListener;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the {@link NodePlatform} of each computer. The platform facts are
+ * gathered once when a computer comes online and are dropped when it goes
+ * offline. Tool resolutions cached for the computer are dropped, too.
+ */
+@Extension
+public class NodePlatformCache extends ComputerListener {
+    private static final Logger logger = Logger
+            .getLogger(NodePlatformCache.class.getName());
+
+    private static final ConcurrentMap<Computer, NodePlatform> platforms = new ConcurrentHashMap<Computer, NodePlatform>();
+
+    /**
+     * Gets the platform facts of the specified node, querying the node if
+     * they are not already cached.
+     *
+     * @throws IOException
+     *             if the node is offline
+     */
+    static NodePlatform get(Node node) throws IOException,
+            InterruptedException {
+        final Computer computer = node.toComputer();
+        if (computer != null) {
+            NodePlatform platform = platforms.get(computer);
+            if (platform != null)
+                return platform;
+        }
+        final VirtualChannel channel = node.getChannel();
+        if (channel == null) {
+            throw new IOException("Node " + node.getDisplayName()
+                    + " is offline");
+        }
+        final NodePlatform platform = channel.call(new NodePlatform.Probe());
+        if (computer != null) {
+            platforms.put(computer, platform);
+        }
+        return platform;
+    }
+
+    @Override
+    public void onOnline(Computer c, TaskListener listener)
+            throws IOException, InterruptedException {
+        // the tool might have been removed while the node was offline
+        ToolResolutionCache.invalidate(c.getName());
+        final VirtualChannel channel = c.getChannel();
+        if (channel == null)
+            return;
+        try {
+            final NodePlatform platform = channel
+                    .call(new NodePlatform.Probe());
+            platforms.put(c, platform);
+            logger.fine(c.getName() + ": " + platform);
+        } catch (IOException ex) {
+            // will be retried on first use
+            logger.log(Level.WARNING, "Failed to query platform of "
+                    + c.getName(), ex);
+        }
+    }
+
+    @Override
+    public void onOffline(Computer c) {
+        platforms.remove(c);
+        ToolResolutionCache.invalidate(c.getName());
+    }
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Shares the outputs of compile edges between build nodes through
+ * <a href="https://ccache.dev/">ccache</a>. ccache is injected as the compiler
+ * launcher of CMake generated ninja files; it keys each compilation on the
+ * hash of the command line and the preprocessed inputs and fetches the output
+ * from a shared directory or an HTTP server instead of compiling.
+ * <p>
+ * The launcher variables are honored by CMake 3.17 and later only, and only
+ * when CMake configures a fresh build directory; a build directory configured
+ * before keeps the launcher recorded in its {@code CMakeCache.txt}.
+ * </p>
+ */
+final class OutputCache {
+    /** the file ccache logs the statistics of each compilation to */
+    static final String STATS_LOG = ".ninja_ccache_stats";
+
+    /** the file CMake records the configuration of a build directory in */
+    private static final String CMAKE_CACHE = "CMakeCache.txt";
+
+    private OutputCache() {
+    }
+
+    /**
+     * Sets up the environment to compile through ccache.
+     *
+     * @param basedir
+     *            the directory to make paths relative to, so that builds in
+     *            different workspaces share cache entries
+     * @param statsLog
+     *            the file to log compilation statistics to
+     */
+    static void buildEnvVars(EnvVars env, String basedir, String statsLog) {
+        env.put("CMAKE_C_COMPILER_LAUNCHER", "ccache");
+        env.put("CMAKE_CXX_COMPILER_LAUNCHER", "ccache");
+        env.put("CCACHE_BASEDIR", basedir);
+        env.put("CCACHE_STATSLOG", statsLog);
+        final NinjaConfiguration config = NinjaConfiguration.get();
+        if (config != null) {
+            if (config.getOutputCacheDir() != null) {
+                env.put("CCACHE_DIR", config.getOutputCacheDir());
+            }
+            if (config.getOutputCacheUrl() != null) {
+                env.put("CCACHE_REMOTE_STORAGE", config.getOutputCacheUrl());
+            }
+        }
+    }
+
+    /**
+     * Gets whether the build directory has already been configured by CMake
+     * without ccache as compiler launcher, so that the launcher variables set
+     * up by {@link #buildEnvVars} will not take effect.
+     */
+    static boolean isConfiguredWithoutLauncher(FilePath buildDir)
+            throws IOException, InterruptedException {
+        return buildDir.child(CMAKE_CACHE).act(new CheckLauncher());
+    }
+
+    // //////////////////////////////////////////////////////////////////
+    // inner classes
+    // //////////////////////////////////////////////////////////////////
+    /**
+     * Cache hits and misses of a build.
+     */
+    static final class Stats implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** compilations served from the local cache */
+        int localHits;
+        /** compilations served from the remote cache */
+        int remoteHits;
+        /** compilations that had to run */
+        int misses;
+
+        int getHits() {
+            return localHits + remoteHits;
+        }
+    } // Stats
+
+    /**
+     * Reads and deletes the ccache statistics log. Must be invoked on the log
+     * file.
+     */
+    static class ReadStats extends MasterToSlaveFileCallable<Stats> {
+        private static final long serialVersionUID = 1L;
+
+        public Stats invoke(File statsLog, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            final Stats stats = new Stats();
+            if (!statsLog.isFile())
+                return stats;
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(statsLog),
+                            "UTF-8"));
+            try {
+                // "# <source file>" followed by the statistic IDs of its
+                // compilation
+                boolean hit = false, remote = false, miss = false;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("#")) {
+                        count(stats, hit, remote, miss);
+                        hit = remote = miss = false;
+                    } else if (line.equals("direct_cache_hit")
+                            || line.equals("preprocessed_cache_hit")) {
+                        hit = true;
+                    } else if (line.equals("remote_storage_hit")) {
+                        remote = true;
+                    } else if (line.equals("cache_miss")) {
+                        miss = true;
+                    }
+                }
+                count(stats, hit, remote, miss);
+            } finally {
+                reader.close();
+            }
+            statsLog.delete();
+            return stats;
+        }
+
+        private static void count(Stats stats, boolean hit, boolean remote,
+                boolean miss) {
+            if (hit) {
+                if (remote)
+                    stats.remoteHits++;
+                else
+                    stats.localHits++;
+            } else if (miss) {
+                stats.misses++;
+            }
+        }
+    } // ReadStats
+
+    /**
+     * Checks a CMake cache file for a ccache compiler launcher. Must be invoked
+     * on the cache file.
+     */
+    private static class CheckLauncher extends
+            MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        public Boolean invoke(File cmakeCache, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            if (!cmakeCache.isFile())
+                return false; // not configured yet
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(cmakeCache),
+                            "UTF-8"));
+            try {
+                // "CMAKE_C_COMPILER_LAUNCHER:STRING=ccache"
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if ((line.startsWith("CMAKE_C_COMPILER_LAUNCHER:") || line
+                            .startsWith("CMAKE_CXX_COMPILER_LAUNCHER:"))
+                            && line.substring(line.indexOf('=') + 1)
+                                    .contains("ccache")) {
+                        return false;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return true;
+        }
+    } // CheckLauncher
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.Functions;
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Unpacks a zip archive in a single pass while it is read from a stream.
+ * Regular files are made executable as soon as they are written and a single
+ * top-level directory shared by all entries is stripped on the fly.
+ *
+ * <p>
+ * Note that the stream only carries the local file headers of a zip archive,
+ * the unix permissions in the external attributes are stored in the central
+ * directory at its very end. So every file gets the execute permission, as
+ * before.
+ * </p>
+ */
+final class StreamingUnzip {
+    /** name of the directory used to undo stripping the top-level directory */
+    private static final String UNSTRIP_DIR = ".unstrip";
+
+    private StreamingUnzip() {
+    }
+
+    /**
+     * Unpacks the zip archive read from the specified stream.
+     *
+     * @param in
+     *            the stream to read the archive from, it is not closed
+     * @param dir
+     *            the directory to unpack to, any existing content is deleted
+     * @return the number of bytes read from the stream
+     */
+    static long unzip(InputStream in, File dir) throws IOException {
+        if (dir.exists()) {
+            Util.deleteContentsRecursive(dir);
+        }
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Failed to create " + dir);
+        }
+        final String basePath = dir.getCanonicalPath() + File.separator;
+        final boolean setExecutable = !Functions.isWindows();
+        final CountingInputStream counter = new CountingInputStream(in);
+        final ZipInputStream zip = new ZipInputStream(counter);
+        // the top-level directory to strip, if any
+        String prefix = null;
+        boolean first = true;
+        ZipEntry e;
+        while ((e = zip.getNextEntry()) != null) {
+            String name = e.getName().replace('\\', '/');
+            if (first) {
+                first = false;
+                final int idx = name.indexOf('/');
+                if (idx > 0) {
+                    prefix = name.substring(0, idx + 1);
+                }
+            }
+            if (prefix != null) {
+                if (name.startsWith(prefix)) {
+                    name = name.substring(prefix.length());
+                    if (name.length() == 0)
+                        continue;
+                } else {
+                    // not a single top-level directory
+                    unstrip(dir, prefix.substring(0, prefix.length() - 1));
+                    prefix = null;
+                }
+            }
+            final File f = new File(dir, name);
+            if (!f.getCanonicalPath().startsWith(basePath)) {
+                throw new IOException("Zip entry " + e.getName()
+                        + " points outside of " + dir);
+            }
+            if (e.isDirectory()) {
+                f.mkdirs();
+            } else {
+                f.getParentFile().mkdirs();
+                OutputStream out = new FileOutputStream(f);
+                try {
+                    IOUtils.copy(zip, out);
+                } finally {
+                    out.close();
+                }
+                if (setExecutable) {
+                    f.setExecutable(true, false);
+                }
+            }
+            zip.closeEntry();
+        }
+        // consume the central directory, so the byte count is complete
+        IOUtils.copy(counter, new NullOutputStream());
+        return counter.getByteCount();
+    }
+
+    /**
+     * Moves everything unpacked so far back into the top-level directory that
+     * was stripped.
+     */
+    private static void unstrip(File dir, String topLevelName)
+            throws IOException {
+        final File tmp = new File(dir, UNSTRIP_DIR);
+        if (!tmp.mkdir()) {
+            throw new IOException("Failed to create " + tmp);
+        }
+        final File[] kids = dir.listFiles();
+        if (kids != null) {
+            for (File kid : kids) {
+                if (!kid.equals(tmp)
+                        && !kid.renameTo(new File(tmp, kid.getName()))) {
+                    throw new IOException("Failed to move " + kid + " to "
+                            + tmp);
+                }
+            }
+        }
+        if (!tmp.renameTo(new File(dir, topLevelName))) {
+            throw new IOException("Failed to rename " + tmp + " to "
+                    + topLevelName);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * A ninja tool process whose output is read line by line. The process is
+ * destroyed if it runs longer than a time limit and always when closed.
+ */
+final class ToolProcess implements Closeable {
+    /** the time a tool may run */
+    private static final long TIMEOUT_MILLIS = Long.getLong(
+            ToolProcess.class.getName() + ".timeoutSeconds", 600) * 1000;
+    private static final Timer watchdog = new Timer("ninja tool watchdog",
+            true);
+
+    private final String command;
+    private final Process process;
+    private final BufferedReader output;
+    private final TimerTask kill;
+    private volatile boolean timedOut;
+
+    /**
+     * Starts a process.
+     *
+     * @param buildDir
+     *            the working directory of the process
+     * @param cmd
+     *            the command line
+     * @param mergeErrors
+     *            whether to read the standard error together with the
+     *            standard output. If {@code false}, the standard error is
+     *            discarded.
+     */
+    ToolProcess(File buildDir, List<String> cmd, boolean mergeErrors)
+            throws IOException {
+        this.command = cmd.toString();
+        final ProcessBuilder pb = new ProcessBuilder(cmd);
+        pb.directory(buildDir);
+        pb.redirectErrorStream(mergeErrors);
+        process = pb.start();
+        process.getOutputStream().close();
+        if (!mergeErrors) {
+            // stderr is not of interest, but must not block the tool
+            final InputStream err = process.getErrorStream();
+            final Thread drain = new Thread("drain " + command) {
+                @Override
+                public void run() {
+                    try {
+                        final byte[] buf = new byte[1024];
+                        while (err.read(buf) != -1) {
+                        }
+                    } catch (IOException ignore) {
+                    }
+                }
+            };
+            drain.setDaemon(true);
+            drain.start();
+        }
+        output = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), "UTF-8"));
+        kill = new TimerTask() {
+            @Override
+            public void run() {
+                timedOut = true;
+                process.destroy();
+            }
+        };
+        watchdog.schedule(kill, TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Gets the output of the process.
+     */
+    BufferedReader getOutput() {
+        return output;
+    }
+
+    /**
+     * Waits for the process to terminate after its output has been read.
+     *
+     * @throws IOException
+     *             if the process timed out or exited with a non-zero status
+     */
+    void waitFor() throws IOException, InterruptedException {
+        final int exit = process.waitFor();
+        if (timedOut) {
+            throw new IOException(command + " timed out after "
+                    + TIMEOUT_MILLIS / 1000 + " s");
+        }
+        if (exit != 0) {
+            throw new IOException(command + " exited with status " + exit);
+        }
+    }
+
+    /**
+     * Closes the output and destroys the process if it is still running.
+     */
+    public void close() {
+        kill.cancel();
+        try {
+            output.close();
+        } catch (IOException ignore) {
+        }
+        process.destroy();
+    }
+}
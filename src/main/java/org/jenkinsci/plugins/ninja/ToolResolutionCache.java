@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import hudson.model.Node;
+import hudson.tools.InstallSourceProperty;
+import hudson.tools.ToolInstaller;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the home directory a {@link NinjaTool} was resolved to on a node,
+ * so that subsequent builds resolve it without a remoting call to the node.
+ * The cache key includes the ID and the download URL of each installer of the
+ * tool, so a changed installer configuration or a newly published download
+ * results in a cache miss. The entries of a node are dropped when the node
+ * goes online or offline, all entries are dropped when the tool configuration
+ * changes.
+ */
+final class ToolResolutionCache {
+    private static final char SEP = '\0';
+
+    /** key: node name, tool name and installer stamp; value: home */
+    private static final ConcurrentMap<String, String> homes = new ConcurrentHashMap<String, String>();
+
+    private ToolResolutionCache() {
+    }
+
+    /**
+     * Gets the cached home directory of the tool on the specified node.
+     *
+     * @return the home directory or {@code null} if not cached
+     */
+    static String get(NinjaTool tool, Node node) throws IOException,
+            InterruptedException {
+        final String key = key(tool, node);
+        return key == null ? null : homes.get(key);
+    }
+
+    /**
+     * Caches the home directory of the tool on the specified node.
+     */
+    static void put(NinjaTool tool, Node node, String home)
+            throws IOException, InterruptedException {
+        final String key = key(tool, node);
+        if (key != null && home != null) {
+            homes.put(key, home);
+        }
+    }
+
+    /**
+     * Drops all cached entries of the specified node.
+     */
+    static void invalidate(String nodeName) {
+        final String prefix = nodeName + SEP;
+        for (Iterator<String> iter = homes.keySet().iterator(); iter.hasNext();) {
+            if (iter.next().startsWith(prefix)) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops all cached entries.
+     */
+    static void invalidateAll() {
+        homes.clear();
+    }
+
+    /**
+     * Computes the cache key.
+     *
+     * @return the key or {@code null} if the tool resolution cannot be cached,
+     *         since the tool has installers other than {@link NinjaInstaller}
+     *         or no installers at all
+     */
+    private static String key(NinjaTool tool, Node node) throws IOException,
+            InterruptedException {
+        final InstallSourceProperty installSource = tool.getProperties().get(
+                InstallSourceProperty.class);
+        if (installSource == null || installSource.installers.size() == 0) {
+            // nothing to install, translation is cheap
+            return null;
+        }
+        final StringBuilder key = new StringBuilder();
+        key.append(node.getNodeName()).append(SEP).append(tool.getName());
+        NodePlatform platform = null;
+        for (ToolInstaller installer : installSource.installers) {
+            if (!(installer instanceof NinjaInstaller)) {
+                return null;
+            }
+            key.append(SEP);
+            if (installer.appliesTo(node)) {
+                if (platform == null) {
+                    platform = NodePlatformCache.get(node);
+                }
+                final NinjaInstaller ninjaInstaller = (NinjaInstaller) installer;
+                key.append(ninjaInstaller.id).append('@').append(
+                        ninjaInstaller.getInstallableUrl(platform));
+            }
+        }
+        return key.toString();
+    }
+}
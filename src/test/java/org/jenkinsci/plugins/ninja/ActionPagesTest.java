@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertTrue;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+/**
+ * Renders the pages of the build actions and checks that their tables show
+ * the recorded data.
+ */
+public class ActionPagesTest {
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void timingTableHasContent() throws Exception {
+        final FreeStyleBuild build = build();
+        build.addAction(new NinjaTimingAction(new NinjaLog.Summary(2, 1500,
+                Arrays.asList(new NinjaLog.Edge("obj/slow.o", 0, 1200),
+                        new NinjaLog.Edge("obj/fast.o", 1200, 1500)))));
+
+        final String text = page(build, "ninja-timings");
+        assertTrue(text, text.contains("obj/slow.o"));
+        assertTrue(text, text.contains("1200"));
+        assertTrue(text, text.contains("obj/fast.o"));
+    }
+
+    @Test
+    public void analysisTablesHaveContent() throws Exception {
+        final FreeStyleBuild build = build();
+        build.addAction(new NinjaAnalysisAction(new NinjaAnalysis.Report(
+                1500, Arrays.asList(new NinjaAnalysis.TimedPath(
+                        "obj/first.o", 1000), new NinjaAnalysis.TimedPath(
+                        "bin/app", 500)), Arrays
+                        .asList(new NinjaAnalysis.TimedPath("bin/app", 500)),
+                1, new float[] { 1f, 1f }), 4));
+
+        final String text = page(build, "ninja-analysis");
+        assertTrue(text, text.contains("obj/first.o"));
+        assertTrue(text, text.contains("1000"));
+        assertTrue(text, text.contains("bin/app"));
+    }
+
+    @Test
+    public void explainTablesHaveContent() throws Exception {
+        final FreeStyleBuild build = build();
+        final Map<NinjaExplain.Reason, Integer> reasons = new EnumMap<NinjaExplain.Reason, Integer>(
+                NinjaExplain.Reason.class);
+        reasons.put(NinjaExplain.Reason.MTIME_NEWER, 7);
+        build.addAction(new NinjaExplainAction(new NinjaExplain.Report(7,
+                reasons, Arrays.asList(new NinjaExplain.Count("config.h", 7)),
+                Arrays.asList(new NinjaExplain.Count("CXX_COMPILER", 5)))));
+
+        final String text = page(build, "ninja-explain");
+        assertTrue(text, text.contains("Input newer than output"));
+        assertTrue(text, text.contains("config.h"));
+        assertTrue(text, text.contains("CXX_COMPILER"));
+    }
+
+    private FreeStyleBuild build() throws Exception {
+        final FreeStyleProject p = j.createFreeStyleProject();
+        return j.buildAndAssertSuccess(p);
+    }
+
+    private String page(FreeStyleBuild build, String url) throws Exception {
+        final HtmlPage page = j.createWebClient().getPage(build, url);
+        return page.asText();
+    }
+}
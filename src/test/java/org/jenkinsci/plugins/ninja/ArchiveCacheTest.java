@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Downloads archives to the controller cache from a local stand-in of the
+ * download site and its mirrors.
+ */
+public class ArchiveCacheTest {
+    private static final String PATH = "/v1.0/ninja-linux.zip";
+    private static final String ETAG = "\"v1\"";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private final TaskListener log = StreamTaskListener.fromStdout();
+    private HttpServer server;
+    private String base;
+    private byte[] zip;
+    /** how each path prefix behaves */
+    private final Map<String, Behaviour> behaviours = Collections
+            .synchronizedMap(new HashMap<String, Behaviour>());
+    /** the requests received, as prefix and Range header */
+    private final List<String[]> requests = Collections
+            .synchronizedList(new ArrayList<String[]>());
+
+    private enum Behaviour {
+        /** serves the archive, honoring range requests */
+        SERVE,
+        /** sends half of the archive, then drops the connection */
+        ABORT,
+        /** serves other content */
+        GARBAGE
+    }
+
+    @Before
+    public void startServer() throws Exception {
+        zip = zip("ninja", "#!/bin/sh\n");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange ex) throws IOException {
+                try {
+                    serve(ex);
+                } finally {
+                    ex.close();
+                }
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+        NinjaConfiguration.get().setMirrors(null);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void resumesFromSameUrl() throws Exception {
+        behaviours.put("/origin", Behaviour.ABORT);
+        try {
+            ArchiveCache.fetch(new URL(base + "/origin" + PATH), null, log);
+            fail("download should have been aborted");
+        } catch (IOException expected) {
+        }
+
+        behaviours.put("/origin", Behaviour.SERVE);
+        final File archive = ArchiveCache.fetch(
+                new URL(base + "/origin" + PATH), null, log);
+        assertArrayEquals(zip, FileUtils.readFileToByteArray(archive));
+        assertEquals(2, requests.size());
+        assertNull(requests.get(0)[1]);
+        assertEquals("bytes=" + zip.length / 2 + "-", requests.get(1)[1]);
+    }
+
+    @Test
+    public void startsOverOnAnotherMirror() throws Exception {
+        NinjaConfiguration.get().setMirrors(base + "/mirror");
+        behaviours.put("/mirror", Behaviour.ABORT);
+        behaviours.put("/origin", Behaviour.SERVE);
+
+        final File archive = ArchiveCache.fetch(
+                new URL(base + "/origin" + PATH), null, log);
+        assertArrayEquals(zip, FileUtils.readFileToByteArray(archive));
+        assertEquals(2, requests.size());
+        assertEquals("/mirror", requests.get(0)[0]);
+        assertEquals("/origin", requests.get(1)[0]);
+        // the half from the mirror must not be continued
+        assertNull(requests.get(1)[1]);
+    }
+
+    @Test
+    public void triesNextMirrorOnDigestMismatch() throws Exception {
+        NinjaConfiguration.get().setMirrors(base + "/mirror");
+        behaviours.put("/mirror", Behaviour.GARBAGE);
+        behaviours.put("/origin", Behaviour.SERVE);
+
+        final File archive = ArchiveCache.fetch(
+                new URL(base + "/origin" + PATH), sha256(zip), log);
+        assertArrayEquals(zip, FileUtils.readFileToByteArray(archive));
+        assertEquals(sha256(zip), ArchiveCache.digestOf(archive));
+        assertEquals("/mirror", requests.get(0)[0]);
+        assertEquals("/origin", requests.get(1)[0]);
+    }
+
+    @Test
+    public void rejectsGarbageWithoutDigest() throws Exception {
+        behaviours.put("/origin", Behaviour.GARBAGE);
+        try {
+            ArchiveCache.fetch(new URL(base + "/origin" + PATH), null, log);
+            fail("garbage should not be cached");
+        } catch (IOException expected) {
+        }
+        behaviours.put("/origin", Behaviour.SERVE);
+        final File archive = ArchiveCache.fetch(
+                new URL(base + "/origin" + PATH), null, log);
+        assertArrayEquals(zip, FileUtils.readFileToByteArray(archive));
+        // nothing left to resume from
+        assertNull(requests.get(1)[1]);
+    }
+
+    private void serve(HttpExchange ex) throws IOException {
+        final String path = ex.getRequestURI().getPath();
+        final String prefix = path.substring(0, path.indexOf('/', 1));
+        final String range = ex.getRequestHeaders().getFirst("Range");
+        requests.add(new String[] { prefix, range });
+        final Behaviour behaviour = behaviours.get(prefix);
+        if (behaviour == null || !path.endsWith(PATH)) {
+            ex.sendResponseHeaders(404, -1);
+            return;
+        }
+        ex.getResponseHeaders().add("ETag", ETAG);
+        final OutputStream out = ex.getResponseBody();
+        switch (behaviour) {
+        case ABORT:
+            ex.sendResponseHeaders(200, zip.length);
+            out.write(zip, 0, zip.length / 2);
+            out.flush();
+            // closing the exchange early drops the connection
+            break;
+        case GARBAGE:
+            final byte[] garbage = new byte[zip.length];
+            ex.sendResponseHeaders(200, garbage.length);
+            out.write(garbage);
+            break;
+        default:
+            final String ifRange = ex.getRequestHeaders().getFirst("If-Range");
+            if (range != null && ETAG.equals(ifRange)) {
+                final int from = Integer.parseInt(range.substring(
+                        "bytes=".length(), range.length() - 1));
+                ex.getResponseHeaders().add("Content-Range",
+                        "bytes " + from + "-" + (zip.length - 1) + "/"
+                                + zip.length);
+                ex.sendResponseHeaders(206, zip.length - from);
+                out.write(zip, from, zip.length - from);
+            } else {
+                ex.sendResponseHeaders(200, zip.length);
+                out.write(zip);
+            }
+            break;
+        }
+    }
+
+    private static byte[] zip(String name, String content) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ZipOutputStream out = new ZipOutputStream(bytes);
+        out.putNextEntry(new ZipEntry("ninja-1.0/" + name));
+        // enough content to make half of the archive a valid range
+        for (int i = 0; i < 1000; i++) {
+            out.write((content + i).getBytes("UTF-8"));
+        }
+        out.closeEntry();
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return Util.toHexString(MessageDigest.getInstance("SHA-256").digest(
+                data));
+    }
+}
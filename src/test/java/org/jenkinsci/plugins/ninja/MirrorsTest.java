@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Tests the order in which mirrors are tried. The health of the mirrors is
+ * kept for the lifetime of the controller, so each test uses its own mirror
+ * URLs.
+ */
+public class MirrorsTest {
+    private static final String PATH = "/ninja-build/ninja/releases/download"
+            + "/v1.5.3/ninja-linux.zip";
+    private static final String URL = "https://github.com" + PATH;
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void usesOriginalWithoutMirrors() {
+        NinjaConfiguration.get().setMirrors(null);
+        assertEquals(Collections.singletonList(URL), Mirrors.candidates(URL));
+    }
+
+    @Test
+    public void keepsConfiguredOrderOfUnmeasuredMirrors() {
+        NinjaConfiguration.get().setMirrors(
+                "http://a.order.test/\nhttp://b.order.test");
+        assertEquals(Arrays.asList("http://a.order.test" + PATH,
+                "http://b.order.test" + PATH, URL), Mirrors.candidates(URL));
+    }
+
+    @Test
+    public void ordersByLatency() {
+        NinjaConfiguration.get().setMirrors(
+                "http://a.latency.test http://b.latency.test"
+                        + " http://c.latency.test");
+        Mirrors.record("http://a.latency.test" + PATH, true, 300);
+        Mirrors.record("http://b.latency.test" + PATH, true, 100);
+        // not measured yet, so tried first
+        assertEquals(Arrays.asList("http://c.latency.test" + PATH,
+                "http://b.latency.test" + PATH, "http://a.latency.test" + PATH,
+                URL), Mirrors.candidates(URL));
+    }
+
+    @Test
+    public void triesFailingMirrorsLast() {
+        NinjaConfiguration.get().setMirrors(
+                "http://a.failing.test http://b.failing.test");
+        Mirrors.record("http://a.failing.test" + PATH, false, 0);
+        assertEquals(Arrays.asList("http://b.failing.test" + PATH,
+                "http://a.failing.test" + PATH, URL), Mirrors.candidates(URL));
+
+        // a success ends the back-off
+        Mirrors.record("http://a.failing.test" + PATH, true, 50);
+        Mirrors.record("http://b.failing.test" + PATH, true, 100);
+        assertEquals(Arrays.asList("http://a.failing.test" + PATH,
+                "http://b.failing.test" + PATH, URL), Mirrors.candidates(URL));
+    }
+
+    @Test
+    public void doesNotRepeatMirroredUrl() {
+        NinjaConfiguration.get().setMirrors("http://a.repeat.test");
+        final String url = "http://a.repeat.test" + PATH;
+        assertEquals(Collections.singletonList(url), Mirrors.candidates(url));
+    }
+}
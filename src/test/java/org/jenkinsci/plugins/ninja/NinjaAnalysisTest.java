@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jenkinsci.plugins.ninja.NinjaAnalysis.Analyze;
+import org.jenkinsci.plugins.ninja.NinjaAnalysis.Report;
+import org.jenkinsci.plugins.ninja.NinjaAnalysis.TimedPath;
+import org.junit.Test;
+
+/**
+ * Tests the critical path and concurrency analysis on a small, hand-built
+ * build.
+ */
+public class NinjaAnalysisTest {
+    /**
+     * The output of {@code ninja -t graph}: app is linked from a.o and b.o,
+     * each object is compiled from its source and gen.h is generated.
+     */
+    private static final String GRAPH = "digraph ninja {\n"
+            + "rankdir=\"LR\"\n"
+            + "node [fontsize=10, shape=box, height=0.25]\n"
+            + "edge [fontsize=10]\n"
+            + "\"0x1\" [label=\"app\"]\n"
+            + "\"0x10\" [label=\"link\", shape=ellipse]\n"
+            + "\"0x10\" -> \"0x1\"\n"
+            + "\"0x2\" -> \"0x10\" [arrowhead=none]\n"
+            + "\"0x4\" -> \"0x10\" [arrowhead=none]\n"
+            + "\"0x2\" [label=\"a.o\"]\n"
+            + "\"0x3\" -> \"0x2\" [label=\" cxx\"]\n"
+            + "\"0x3\" [label=\"a.cpp\"]\n"
+            + "\"0x4\" [label=\"b.o\"]\n"
+            + "\"0x5\" -> \"0x4\" [label=\" cxx\"]\n"
+            + "\"0x5\" [label=\"b.cpp\"]\n"
+            + "\"0x6\" [label=\"gen.h\"]\n"
+            + "\"0x7\" -> \"0x6\" [label=\" gen\"]\n"
+            + "\"0x7\" [label=\"gen.py\"]\n"
+            + "}\n";
+    /**
+     * The output of {@code ninja -t deps}: only the compiler knows that a.o
+     * includes gen.h.
+     */
+    private static final String DEPS = "a.o: #deps 2, deps mtime 1 (VALID)\n"
+            + "    a.cpp\n"
+            + "    gen.h\n"
+            + "\n"
+            + "b.o: #deps 1, deps mtime 1 (VALID)\n"
+            + "    b.cpp\n"
+            + "\n";
+
+    @Test
+    public void readsInputsFromGraphAndDeps() throws IOException {
+        final Map<String, Set<String>> inputs = inputs();
+        assertEquals(set("a.o", "b.o"), inputs.get("app"));
+        assertEquals(set("a.cpp", "gen.h"), inputs.get("a.o"));
+        assertEquals(set("b.cpp"), inputs.get("b.o"));
+        assertEquals(set("gen.py"), inputs.get("gen.h"));
+    }
+
+    @Test
+    public void findsCriticalPath() throws IOException {
+        final Report report = analyzeSample();
+        assertEquals(3500, report.criticalPathMillis);
+        assertEquals(Arrays.asList("gen.h 1200", "a.o 1800", "app 500"),
+                paths(report.criticalPath));
+    }
+
+    @Test
+    public void attributesSoloTime() throws IOException {
+        final Report report = analyzeSample();
+        // b.o always ran next to a.o
+        assertEquals(Arrays.asList("gen.h 1200", "a.o 1000", "app 500"),
+                paths(report.serializing));
+        int total = 0;
+        for (TimedPath path : report.serializing) {
+            total += path.millis;
+        }
+        assertEquals(2700, total);
+    }
+
+    @Test
+    public void profilesConcurrencyPerSecond() throws IOException {
+        final Report report = analyzeSample();
+        assertEquals(1, report.bucketSeconds);
+        assertArrayEquals(new float[] { 1.0f, 1.8f, 1.0f, 0.5f },
+                report.concurrency, 0.001f);
+    }
+
+    @Test
+    public void capsNumberOfBuckets() {
+        // an edge of 1000 s would need 1001 buckets of a second
+        final List<NinjaLog.Edge> edges = Collections
+                .singletonList(new NinjaLog.Edge("slow.o", 0, 1000 * 1000));
+        final Map<String, Integer> edgeByOutput = new HashMap<String, Integer>();
+        edgeByOutput.put("slow.o", 0);
+        final Report report = Analyze.analyze(edges, edgeByOutput,
+                new HashMap<String, Set<String>>(), 1000 * 1000);
+        assertEquals(2, report.bucketSeconds);
+        assertTrue(report.concurrency.length
+                <= NinjaAnalysis.MAX_PROFILE_BUCKETS);
+        assertEquals(1.0f, report.concurrency[0], 0.001f);
+        assertEquals(1.0f, report.concurrency[499], 0.001f);
+    }
+
+    /**
+     * Analyzes the sample build: gen.h is generated first, then a.o and b.o
+     * are compiled concurrently and app is linked.
+     */
+    private static Report analyzeSample() throws IOException {
+        final List<NinjaLog.Edge> edges = new ArrayList<NinjaLog.Edge>();
+        edges.add(new NinjaLog.Edge("gen.h", 0, 1200));
+        edges.add(new NinjaLog.Edge("b.o", 1200, 2000));
+        edges.add(new NinjaLog.Edge("a.o", 1200, 3000));
+        edges.add(new NinjaLog.Edge("app", 3000, 3500));
+        final Map<String, Integer> edgeByOutput = new HashMap<String, Integer>();
+        for (int i = 0; i < edges.size(); i++) {
+            edgeByOutput.put(edges.get(i).path, i);
+        }
+        return Analyze.analyze(edges, edgeByOutput, inputs(), 3500);
+    }
+
+    private static Map<String, Set<String>> inputs() throws IOException {
+        final Map<String, Set<String>> inputs = new HashMap<String, Set<String>>();
+        Analyze.parseGraph(new BufferedReader(new StringReader(GRAPH)),
+                inputs);
+        Analyze.parseDeps(new BufferedReader(new StringReader(DEPS)), inputs);
+        return inputs;
+    }
+
+    private static List<String> paths(List<TimedPath> paths) {
+        final List<String> result = new ArrayList<String>();
+        for (TimedPath path : paths) {
+            result.add(path.path + " " + path.millis);
+        }
+        return result;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+}
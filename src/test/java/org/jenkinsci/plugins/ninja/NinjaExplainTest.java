@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.regex.Matcher;
+
+import org.jenkinsci.plugins.ninja.NinjaExplain.Reason;
+import org.junit.Test;
+
+/**
+ * Tests classifying the explanations of {@code ninja -d explain}.
+ */
+public class NinjaExplainTest {
+
+    @Test
+    public void inputNewerThanOutput() {
+        assertReason(Reason.MTIME_NEWER, "obj/a.o", "src/a.c",
+                "output obj/a.o older than most recent input src/a.c"
+                        + " (1700000000 vs 1700000100)");
+        assertReason(Reason.MTIME_NEWER, "obj/b.o", "include/config.h",
+                "recorded mtime of obj/b.o older than most recent input"
+                        + " include/config.h (1 vs 2)");
+        assertReason(Reason.MTIME_NEWER, "gen.h", "gen.py",
+                "restat of output gen.h older than most recent input gen.py"
+                        + " (1 vs 2)");
+    }
+
+    @Test
+    public void commandLineChanged() {
+        assertReason(Reason.COMMAND_CHANGED, "obj/c.o", null,
+                "command line changed for obj/c.o");
+    }
+
+    @Test
+    public void outputMissing() {
+        assertReason(Reason.MISSING_OUTPUT, "obj/d.o", null,
+                "output obj/d.o doesn't exist");
+    }
+
+    @Test
+    public void depsMissing() {
+        // newer versions of ninja quote the output
+        assertReason(Reason.MISSING_DEPS, "obj/e.o", null,
+                "deps for 'obj/e.o' are missing");
+        assertReason(Reason.MISSING_DEPS, "obj/f.o", null,
+                "deps for obj/f.o are missing");
+    }
+
+    @Test
+    public void inputDirty() {
+        assertReason(Reason.DIRTY_INPUT, "obj/g.o", null, "obj/g.o is dirty");
+    }
+
+    @Test
+    public void unknownExplanation() {
+        assertReason(Reason.OTHER, "some other message", null,
+                "some other message");
+    }
+
+    /**
+     * Asserts that the first reason whose pattern matches, like
+     * {@link NinjaExplain.Explain} tries them, is the expected one.
+     *
+     * @param output
+     *            the expected first group
+     * @param input
+     *            the expected second group or {@code null} if the pattern
+     *            has a single group
+     */
+    private static void assertReason(Reason expected, String output,
+            String input, String explanation) {
+        for (Reason reason : Reason.values()) {
+            final Matcher m = reason.pattern.matcher(explanation);
+            if (!m.find())
+                continue;
+            assertEquals(explanation, expected, reason);
+            assertEquals(output, m.group(1));
+            if (input != null) {
+                assertEquals(input, m.group(2));
+            }
+            return;
+        }
+        throw new AssertionError("no reason matches " + explanation);
+    }
+}
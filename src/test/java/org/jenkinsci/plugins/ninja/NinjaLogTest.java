@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests parsing the entries of a ninja log file.
+ */
+public class NinjaLogTest {
+    private static final String HEADER = "# ninja log v5\n";
+    private static final NinjaLog.Position START = NinjaLog.Position.START;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void parsesEdges() throws IOException {
+        final File log = log(HEADER, "0\t120\t0\ta.o\t1a\n",
+                "10\t300\t0\tb.o\t2b\n");
+        final List<String> edges = new ArrayList<String>();
+        assertEquals(300, NinjaLog.parse(log, START, recorder(edges)));
+        assertEquals(Arrays.asList("a.o 0-120", "b.o 10-300"), edges);
+    }
+
+    @Test
+    public void appendsFurtherOutputsToTheirEdge() throws IOException {
+        final File log = log(HEADER, "0\t50\t0\tgen.h\t3c\n",
+                "0\t50\t0\tgen.c\t3c\n", "50\t80\t0\tgen.o\t4d\n");
+        final List<String> edges = new ArrayList<String>();
+        NinjaLog.parse(log, START, recorder(edges));
+        assertEquals(Arrays.asList("gen.h 0-50", "+gen.c", "gen.o 50-80"),
+                edges);
+    }
+
+    @Test
+    public void offsetsFollowingInvocations() throws IOException {
+        // the second invocation´s times restart at zero
+        final File log = log(HEADER, "0\t100\t0\ta.o\t1a\n",
+                "0\t40\t0\tb.o\t2b\n", "40\t70\t0\tc.o\t3c\n");
+        final List<String> edges = new ArrayList<String>();
+        assertEquals(170, NinjaLog.parse(log, START, recorder(edges)));
+        assertEquals(Arrays.asList("a.o 0-100", "b.o 100-140", "c.o 140-170"),
+                edges);
+    }
+
+    @Test
+    public void readsEntriesAfterPosition() throws IOException {
+        final File log = log(HEADER, "0\t100\t0\told.o\t1a\n");
+        final NinjaLog.Position from = NinjaLog.Position.of(log);
+        append(log, "0\t20\t0\tnew.o\t2b\n");
+        final List<String> edges = new ArrayList<String>();
+        assertEquals(20, NinjaLog.parse(log, from, recorder(edges)));
+        assertEquals(Arrays.asList("new.o 0-20"), edges);
+    }
+
+    @Test(expected = NinjaLog.RewrittenException.class)
+    public void detectsShorterRewrittenLog() throws IOException {
+        final File log = log(HEADER, "0\t100\t0\ta.o\t1a\n",
+                "0\t100\t0\ta.o\t1a\n", "0\t100\t0\ta.o\t1a\n");
+        final NinjaLog.Position from = NinjaLog.Position.of(log);
+        // ninja recompacted the log, so it is shorter than before the build
+        log(HEADER, "0\t100\t0\ta.o\t1a\n");
+        NinjaLog.parse(log, from, recorder(new ArrayList<String>()));
+    }
+
+    @Test(expected = NinjaLog.RewrittenException.class)
+    public void detectsLongerRewrittenLog() throws IOException {
+        final File log = log(HEADER, "0\t100\t0\ta.o\t1a\n",
+                "0\t100\t0\ta.o\t1a\n");
+        final NinjaLog.Position from = NinjaLog.Position.of(log);
+        // recompacted, then the build appended more than was removed
+        log(HEADER, "0\t100\t0\ta.o\t1a\n", "0\t30\t0\tb.o\t2b\n",
+                "0\t40\t0\tc.o\t3c\n");
+        NinjaLog.parse(log, from, recorder(new ArrayList<String>()));
+    }
+
+    @Test
+    public void readsAllOfNewLog() throws IOException {
+        final NinjaLog.Position from = NinjaLog.Position.of(new File(tmp
+                .getRoot(), NinjaLog.FILE_NAME));
+        final File log = log(HEADER, "0\t20\t0\ta.o\t1a\n");
+        final List<String> edges = new ArrayList<String>();
+        NinjaLog.parse(log, from, recorder(edges));
+        assertEquals(Arrays.asList("a.o 0-20"), edges);
+    }
+
+    @Test
+    public void ingestsEdgesIntoBinaryRecord() throws IOException {
+        final File log = log(HEADER, "0\t120\t0\ta.o\t1a\n",
+                "10\t300\t0\tb,c.o\t2b\n");
+        final File timings = tmp.newFile("timings.bin");
+        final OutputStream out = new FileOutputStream(timings);
+        final NinjaLog.Summary summary;
+        try {
+            summary = new NinjaLog.Ingest(START, out).invoke(log, null);
+        } finally {
+            out.close();
+        }
+        assertEquals(2, summary.edges);
+        assertEquals(300, summary.wallMillis);
+        assertEquals("b,c.o", summary.slowest.get(0).getPath());
+
+        final StringWriter csv = new StringWriter();
+        NinjaTimingAction.writeCsv(timings, csv);
+        assertEquals("target,start_ms,end_ms,duration_ms\n"
+                + "a.o,0,120,120\n\"b,c.o\",10,300,290\n", csv.toString());
+    }
+
+    @Test
+    public void skipsMalformedLines() throws IOException {
+        final File log = log(HEADER, "garbage\n", "x\t1\t0\ta.o\t1a\n",
+                "0\t10\t0\tb.o\n", "0\t30\t0\tc.o\t3c\n");
+        final List<String> edges = new ArrayList<String>();
+        NinjaLog.parse(log, START, recorder(edges));
+        assertEquals(Arrays.asList("c.o 0-30"), edges);
+    }
+
+    @Test
+    public void ignoresMissingLog() throws IOException {
+        final List<String> edges = new ArrayList<String>();
+        assertEquals(0, NinjaLog.parse(new File(tmp.getRoot(), "none"), START,
+                recorder(edges)));
+        assertEquals(0, edges.size());
+    }
+
+    private static void append(File log, String line) throws IOException {
+        final Writer out = new OutputStreamWriter(new FileOutputStream(log,
+                true), "UTF-8");
+        try {
+            out.write(line);
+        } finally {
+            out.close();
+        }
+    }
+
+    private File log(String... lines) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line);
+        }
+        final File log = new File(tmp.getRoot(), NinjaLog.FILE_NAME);
+        FileUtils.writeStringToFile(log, content.toString(), "UTF-8");
+        return log;
+    }
+
+    /**
+     * Records edges as "path start-end" and further outputs as "+path".
+     */
+    private static NinjaLog.LogVisitor recorder(final List<String> edges) {
+        return new NinjaLog.LogVisitor() {
+            public void edge(int start, int end, String path) {
+                edges.add(path + " " + start + "-" + end);
+            }
+
+            public void output(String path) {
+                edges.add("+" + path);
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests the computation of the recommended ninja parallelism.
+ */
+public class NinjaParallelismTest {
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    @Test
+    public void sharesCpusBetweenExecutors() {
+        final NinjaParallelism p = NinjaParallelism.compute(platform(16, -1),
+                4, 0, null);
+        assertEquals(4, p.jobs);
+        assertEquals(16, p.load);
+    }
+
+    @Test
+    public void limitsJobsByMemory() {
+        final NinjaParallelism p = NinjaParallelism.compute(
+                platform(16, 4 * GB), 1, 0, null);
+        assertEquals(4, p.jobs);
+    }
+
+    @Test
+    public void runsAtLeastOneJob() {
+        final NinjaParallelism p = NinjaParallelism.compute(
+                platform(1, GB / 2), 8, 0, null);
+        assertEquals(1, p.jobs);
+    }
+
+    @Test
+    public void capsByMaxJobs() {
+        final NinjaParallelism p = NinjaParallelism.compute(platform(16, -1),
+                1, 3, null);
+        assertEquals(3, p.jobs);
+    }
+
+    @Test
+    public void nodeOverrideIsCappedByMaxJobs() {
+        final NinjaParallelism p = NinjaParallelism.compute(platform(16, -1),
+                1, 3, new NinjaNodeProperty(32, 12));
+        assertEquals(3, p.jobs);
+        assertEquals(12, p.load);
+    }
+
+    @Test
+    public void nodeOverrideAppliesWithoutMaxJobs() {
+        final NinjaParallelism p = NinjaParallelism.compute(platform(16, -1),
+                4, 0, new NinjaNodeProperty(32, 0));
+        assertEquals(32, p.jobs);
+        assertEquals(16, p.load);
+    }
+
+    @Test
+    public void omitsJobsWithJobServer() {
+        final Map<String, String> env = NinjaParallelism.compute(
+                platform(8, -1), 1, 0, null).toEnvVars(true);
+        assertEquals("-l 8", env.get(NinjaParallelism.ENV_ARGS));
+        assertEquals("8", env.get(NinjaParallelism.ENV_JOBS));
+    }
+
+    private static NodePlatform platform(int cpus, long memory) {
+        return new NodePlatform("Linux", "amd64", cpus, memory, "glibc");
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+/**
+ * Tests collapsing ninja´s status lines in the console log.
+ */
+public class NinjaProgressFilterTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /** long enough to hold back every status line but the first */
+    private static final long NEVER = 3600 * 1000;
+
+    @Test
+    public void collapsesStatusLines() throws IOException {
+        assertEquals("[1/4] CXX a.o\n[4/4] LINK app\n"
+                + "Collapsed 2 ninja status lines\n", filter(NEVER,
+                "[1/4] CXX a.o\n", "[2/4] CXX b.o\n", "[3/4] CXX c.o\n",
+                "[4/4] LINK app\n"));
+    }
+
+    @Test
+    public void writesHeldStatusBeforeOtherLines() throws IOException {
+        assertEquals("[1/3] CXX a.o\n[2/3] CXX b.o\n"
+                + "b.cpp:1: error: oops\n[3/3] LINK app\n", filter(NEVER,
+                "[1/3] CXX a.o\n", "[2/3] CXX b.o\n", "b.cpp:1: error: oops\n",
+                "[3/3] LINK app\n"));
+    }
+
+    @Test
+    public void writesHeldStatusOnClose() throws IOException {
+        assertEquals("[1/4] CXX a.o\n[2/4] CXX b.o\n",
+                filter(NEVER, "[1/4] CXX a.o\n", "[2/4] CXX b.o\n"));
+    }
+
+    @Test
+    public void comparesAllDigitsOfLastEdge() throws IOException {
+        // [1/10] is not the last edge, although it starts like [10/10]
+        assertEquals("[1/10] CXX a.o\n[10/10] LINK app\n"
+                + "Collapsed 2 ninja status lines\n", filter(NEVER,
+                "[1/10] CXX a.o\n", "[1/10] CXX b.o\n", "[9/10] CXX c.o\n",
+                "[10/10] LINK app\n"));
+    }
+
+    @Test
+    public void passesOtherLinesThrough() throws IOException {
+        final String[] lines = { "[1/4] CXX a.o\n", "[abc] x\n", "[/3] y\n",
+                "[1/] z\n", "ninja: no work to do.\n" };
+        final StringBuilder expected = new StringBuilder();
+        for (String line : lines) {
+            expected.append(line);
+        }
+        assertEquals(expected.toString(), filter(NEVER, lines));
+    }
+
+    @Test
+    public void writesAllWithoutInterval() throws IOException {
+        assertEquals("[1/2] CXX a.o\n[2/2] LINK app\n",
+                filter(0, "[1/2] CXX a.o\n", "[2/2] LINK app\n"));
+    }
+
+    private static String filter(long intervalMillis, String... lines)
+            throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final NinjaProgressFilter filter = new NinjaProgressFilter(out,
+                intervalMillis, UTF8);
+        for (String line : lines) {
+            filter.write(line.getBytes(UTF8));
+        }
+        filter.close();
+        return new String(out.toByteArray(), UTF8);
+    }
+}
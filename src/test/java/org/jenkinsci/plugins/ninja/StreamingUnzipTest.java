@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The ninja plugin contributors.
+ *
+ * Contributors:
+ *      The ninja plugin contributors - Initial implementation
+ *******************************************************************************/
+package org.jenkinsci.plugins.ninja;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import hudson.Functions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests unpacking zip archives while streaming them.
+ */
+public class StreamingUnzipTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void unpacksFlatArchive() throws IOException {
+        final File dir = unzip(zip("ninja", "bin", "README", "text"));
+        assertFiles(dir, "README", "ninja");
+        assertEquals("bin", read(dir, "ninja"));
+    }
+
+    @Test
+    public void stripsSingleTopLevelDirectory() throws IOException {
+        final File dir = unzip(zip("ninja-1.5/", null, "ninja-1.5/ninja",
+                "bin", "ninja-1.5/doc/manual.html", "html"));
+        assertFiles(dir, "doc", "ninja");
+        assertEquals("html", read(dir, "doc/manual.html"));
+    }
+
+    @Test
+    public void unstripsIfEntriesDoNotShareTopLevelDirectory()
+            throws IOException {
+        final File dir = unzip(zip("bin/ninja", "bin", "bin/doc/manual.html",
+                "html", "README", "text"));
+        assertFiles(dir, "README", "bin");
+        assertEquals("bin", read(dir, "bin/ninja"));
+        assertEquals("html", read(dir, "bin/doc/manual.html"));
+    }
+
+    @Test
+    public void replacesExistingContent() throws IOException {
+        final File dir = tmp.newFolder("ninja");
+        FileUtils.writeStringToFile(new File(dir, "stale"), "old", "UTF-8");
+        StreamingUnzip.unzip(
+                new ByteArrayInputStream(zip("ninja", "bin")), dir);
+        assertFiles(dir, "ninja");
+    }
+
+    @Test
+    public void countsAllBytes() throws IOException {
+        final byte[] zip = zip("ninja", "bin");
+        assertEquals(zip.length, StreamingUnzip.unzip(new ByteArrayInputStream(
+                zip), new File(tmp.getRoot(), "ninja")));
+    }
+
+    @Test
+    public void makesFilesExecutable() throws IOException {
+        final File dir = unzip(zip("top/ninja", "bin"));
+        if (!Functions.isWindows()) {
+            assertTrue(new File(dir, "ninja").canExecute());
+        }
+    }
+
+    @Test
+    public void rejectsEntriesOutsideOfDirectory() throws IOException {
+        assertRejected(zip("ninja", "bin", "../evil", "x"));
+        // escapes after the top-level directory was stripped
+        assertRejected(zip("top/ninja", "bin", "top/../evil", "x"));
+    }
+
+    private void assertRejected(byte[] zip) throws IOException {
+        final File dir = tmp.newFolder();
+        try {
+            StreamingUnzip.unzip(new ByteArrayInputStream(zip), new File(dir,
+                    "ninja"));
+            fail("entry outside of the directory was unpacked");
+        } catch (IOException expected) {
+        }
+        assertFalse(new File(dir, "evil").exists());
+    }
+
+    private File unzip(byte[] zip) throws IOException {
+        final File dir = new File(tmp.newFolder(), "ninja");
+        StreamingUnzip.unzip(new ByteArrayInputStream(zip), dir);
+        return dir;
+    }
+
+    private static void assertFiles(File dir, String... names) {
+        final String[] actual = dir.list();
+        Arrays.sort(actual);
+        assertEquals(Arrays.asList(names), Arrays.asList(actual));
+    }
+
+    private static String read(File dir, String path) throws IOException {
+        return FileUtils.readFileToString(new File(dir, path), "UTF-8");
+    }
+
+    /**
+     * Creates a zip archive.
+     *
+     * @param entries
+     *            pairs of entry name and content, {@code null} content for
+     *            directories
+     */
+    private static byte[] zip(String... entries) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ZipOutputStream zip = new ZipOutputStream(bytes);
+        for (int i = 0; i < entries.length; i += 2) {
+            zip.putNextEntry(new ZipEntry(entries[i]));
+            if (entries[i + 1] != null) {
+                zip.write(entries[i + 1].getBytes("UTF-8"));
+            }
+            zip.closeEntry();
+        }
+        zip.close();
+        return bytes.toByteArray();
+    }
+}